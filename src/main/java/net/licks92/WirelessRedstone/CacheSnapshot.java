@@ -0,0 +1,271 @@
+package net.licks92.WirelessRedstone;
+
+import net.licks92.WirelessRedstone.GlobalCache.CachedPoint;
+import net.licks92.WirelessRedstone.Libs.PersistentLongMap;
+import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
+import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the cache at one moment. The GlobalCache never changes a snapshot after it has been published,
+ * it builds a new one instead. A snapshot can be read from any thread without locking and all its getters describe
+ * the same state.
+ * <p>
+ * The indexes are persistent maps, a new snapshot shares everything that didn't change with the previous one. The
+ * channels of a snapshot aren't changed either, a change works on a copy of the channel.
+ */
+public final class CacheSnapshot {
+
+    private static final Comparator<WirelessChannel> CHANNEL_ORDER = new Comparator<WirelessChannel>() {
+        @Override
+        public int compare(WirelessChannel first, WirelessChannel second) {
+            return first.getName().compareToIgnoreCase(second.getName());
+        }
+    };
+
+    // Channels by the hash of their lower case name, channels with the same hash share the array
+    private final PersistentLongMap<WirelessChannel[]> channelsByName;
+    private final Map<String, PersistentLongMap<PointEntry>> pointsByLocation;
+    private final Map<String, PersistentLongMap<Integer>> protectedChunks;
+    private final Map<String, PersistentLongMap<Integer>> watchedBlocks;
+    private final int chunkRange;
+    private final int channelCount;
+    private final int pointCount;
+
+    // These walk over every channel, so they are only built when somebody asks for them
+    private volatile List<WirelessChannel> allChannels = null;
+    private volatile List<IWirelessPoint> allSigns = null;
+    private volatile List<Location> allSignLocations = null;
+    private volatile List<Location> allReceiverLocations = null;
+
+    /**
+     * The maps are owned by the snapshot after this, they may not be changed anymore.
+     */
+    CacheSnapshot(PersistentLongMap<WirelessChannel[]> channelsByName,
+                  Map<String, PersistentLongMap<PointEntry>> pointsByLocation,
+                  Map<String, PersistentLongMap<Integer>> protectedChunks,
+                  Map<String, PersistentLongMap<Integer>> watchedBlocks, int chunkRange, int channelCount) {
+        this.channelsByName = channelsByName;
+        this.pointsByLocation = Collections.unmodifiableMap(pointsByLocation);
+        this.protectedChunks = Collections.unmodifiableMap(protectedChunks);
+        this.watchedBlocks = Collections.unmodifiableMap(watchedBlocks);
+        this.chunkRange = chunkRange;
+        this.channelCount = channelCount;
+
+        int count = 0;
+        for (PersistentLongMap<PointEntry> worldIndex : pointsByLocation.values()) {
+            count += worldIndex.size();
+        }
+        this.pointCount = count;
+    }
+
+    static CacheSnapshot empty(int chunkRange) {
+        return new CacheSnapshot(PersistentLongMap.<WirelessChannel[]>empty(),
+                Collections.<String, PersistentLongMap<PointEntry>>emptyMap(),
+                Collections.<String, PersistentLongMap<Integer>>emptyMap(),
+                Collections.<String, PersistentLongMap<Integer>>emptyMap(), chunkRange, 0);
+    }
+
+    /**
+     * @return the key of a channel name in the channel index, the case of the name is ignored
+     */
+    static long getChannelKey(String channelName) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < channelName.length(); i++) {
+            // The same folding as equalsIgnoreCase, names that are equal ignoring the case get the same key
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(channelName.charAt(i)));
+        }
+        return hash;
+    }
+
+    static WirelessChannel findChannel(WirelessChannel[] bucket, String channelName) {
+        if (bucket == null)
+            return null;
+
+        for (WirelessChannel channel : bucket) {
+            if (channel.getName().equalsIgnoreCase(channelName))
+                return channel;
+        }
+        return null;
+    }
+
+    PersistentLongMap<WirelessChannel[]> getChannelIndex() {
+        return channelsByName;
+    }
+
+    Map<String, PersistentLongMap<PointEntry>> getPointIndex() {
+        return pointsByLocation;
+    }
+
+    Map<String, PersistentLongMap<Integer>> getChunkIndex() {
+        return protectedChunks;
+    }
+
+    Map<String, PersistentLongMap<Integer>> getWatchedIndex() {
+        return watchedBlocks;
+    }
+
+    int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getChunkRange() {
+        return chunkRange;
+    }
+
+    /**
+     * @return all the channels, sorted by name
+     */
+    public Collection<WirelessChannel> getAllChannels() {
+        List<WirelessChannel> channels = allChannels;
+        if (channels == null) {
+            channels = new ArrayList<>(channelCount);
+            for (WirelessChannel[] bucket : channelsByName.values()) {
+                Collections.addAll(channels, bucket);
+            }
+            Collections.sort(channels, CHANNEL_ORDER);
+            channels = Collections.unmodifiableList(channels);
+            allChannels = channels;
+        }
+        return channels;
+    }
+
+    /**
+     * Get a channel by its name, ignoring the case.
+     *
+     * @param channelName name of the channel
+     * @return the cached channel or null if there isn't one
+     */
+    public WirelessChannel getWirelessChannel(String channelName) {
+        if (channelName == null)
+            return null;
+
+        return findChannel(channelsByName.get(getChannelKey(channelName)), channelName);
+    }
+
+    /**
+     * Get the wireless point at a block and the channel it belongs to.
+     *
+     * @return the cached point or null if there isn't a wireless point at this block
+     */
+    public CachedPoint getCachedPoint(String world, int x, int y, int z) {
+        if (world == null)
+            return null;
+
+        PersistentLongMap<PointEntry> worldIndex = pointsByLocation.get(world);
+        if (worldIndex == null)
+            return null;
+
+        PointEntry entry = worldIndex.get(WirelessRedstone.getUtils().getBlockKey(x, y, z));
+        if (entry == null)
+            return null;
+
+        // The point only knows the name of its channel, so changing a channel doesn't touch its points
+        WirelessChannel channel = findChannel(channelsByName.get(entry.channelKey), entry.channelName);
+        return channel != null ? new CachedPoint(entry.point, channel) : null;
+    }
+
+    public CachedPoint getCachedPoint(Location loc) {
+        if (loc == null || loc.getWorld() == null)
+            return null;
+
+        return getCachedPoint(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+    /**
+     * @return true if there is a wireless point within cancelChunkUnloadRange chunks of this chunk
+     */
+    public boolean isChunkProtected(String world, int chunkX, int chunkZ) {
+        PersistentLongMap<Integer> worldChunks = protectedChunks.get(world);
+        return worldChunks != null && worldChunks.containsKey(WirelessRedstone.getUtils().getChunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * A redstone change can only reach a transmitter when it happens at most two blocks away from it: at the
+     * transmitter, next to it, or at a block that is forwarded to a neighbour (repeaters, levers, buttons, plates).
+     *
+     * @return true if a redstone change at this block could affect a transmitter
+     */
+    public boolean isBlockWatched(String world, int x, int y, int z) {
+        return isBlockWatched(world, WirelessRedstone.getUtils().getBlockKey(x, y, z));
+    }
+
+    /**
+     * @param blockKey the block packed with Utils.getBlockKey
+     */
+    public boolean isBlockWatched(String world, long blockKey) {
+        PersistentLongMap<Integer> worldBlocks = watchedBlocks.get(world);
+        return worldBlocks != null && worldBlocks.containsKey(blockKey);
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public List<IWirelessPoint> getAllSigns() {
+        List<IWirelessPoint> signs = allSigns;
+        if (signs == null) {
+            signs = new ArrayList<>(pointCount);
+            for (WirelessChannel channel : getAllChannels()) {
+                signs.addAll(channel.getReceivers());
+                signs.addAll(channel.getTransmitters());
+                signs.addAll(channel.getScreens());
+            }
+            signs = Collections.unmodifiableList(signs);
+            allSigns = signs;
+        }
+        return signs;
+    }
+
+    public List<Location> getAllSignLocations() {
+        List<Location> locations = allSignLocations;
+        if (locations == null) {
+            List<IWirelessPoint> signs = getAllSigns();
+            locations = new ArrayList<>(signs.size());
+            for (IWirelessPoint point : signs) {
+                locations.add(point.getLocation());
+            }
+            locations = Collections.unmodifiableList(locations);
+            allSignLocations = locations;
+        }
+        return locations;
+    }
+
+    public List<Location> getAllReceiverLocations() {
+        List<Location> locations = allReceiverLocations;
+        if (locations == null) {
+            locations = new ArrayList<>();
+            for (IWirelessPoint point : getAllSigns()) {
+                if (point instanceof WirelessReceiver)
+                    locations.add(point.getLocation());
+            }
+            locations = Collections.unmodifiableList(locations);
+            allReceiverLocations = locations;
+        }
+        return locations;
+    }
+
+    /**
+     * A point in the location index. It refers to its channel by name, the channel is looked up in the snapshot.
+     */
+    static final class PointEntry {
+
+        final IWirelessPoint point;
+        final String channelName;
+        final long channelKey;
+
+        PointEntry(IWirelessPoint point, String channelName) {
+            this.point = point;
+            this.channelName = channelName;
+            this.channelKey = getChannelKey(channelName);
+        }
+    }
+}
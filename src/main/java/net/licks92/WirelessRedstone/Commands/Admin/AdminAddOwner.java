@@ -36,8 +36,10 @@ public class AdminAddOwner extends WirelessCommand {
             return;
         }
 
-        channel.addOwner(playerName);
-        WirelessRedstone.getStorage().updateChannel(channelName, channel);
+        // The cached channel is never changed, the storage updates it from this copy
+        WirelessChannel updated = channel.copy();
+        updated.addOwner(playerName);
+        WirelessRedstone.getStorage().updateChannel(channelName, updated);
 
         WirelessRedstone.getWRLogger().info("Channel " + channelName + " has been updated. Player " + playerName + " has been added to the owner list.");
         WirelessRedstone.getUtils().sendFeedback(WirelessRedstone.getStrings().channelOwnerAdded.replaceAll("%%PLAYERNAME", playerName), sender, false);
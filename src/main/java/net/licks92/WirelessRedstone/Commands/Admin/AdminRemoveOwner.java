@@ -36,8 +36,10 @@ public class AdminRemoveOwner extends WirelessCommand {
             return;
         }
 
-        channel.removeOwner(playerName);
-        WirelessRedstone.getStorage().updateChannel(channelName, channel);
+        // The cached channel is never changed, the storage updates it from this copy
+        WirelessChannel updated = channel.copy();
+        updated.removeOwner(playerName);
+        WirelessRedstone.getStorage().updateChannel(channelName, updated);
 
         WirelessRedstone.getWRLogger().info("Channel " + channelName + " has been updated. Player " + playerName + " has been removed to the owner list.");
         WirelessRedstone.getUtils()
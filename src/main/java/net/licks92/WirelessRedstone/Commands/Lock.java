@@ -28,8 +28,10 @@ public class Lock extends WirelessCommand {
                 newState = args[1].equalsIgnoreCase("true");
         }
 
-        channel.setLocked(newState);
-        WirelessRedstone.getStorage().updateChannel(args[0], channel);
+        // The cached channel is never changed, the storage updates it from this copy
+        WirelessChannel updated = channel.copy();
+        updated.setLocked(newState);
+        WirelessRedstone.getStorage().updateChannel(args[0], updated);
         WirelessRedstone.getUtils()
                 .sendFeedback(newState ? WirelessRedstone.getStrings().channelLocked : WirelessRedstone.getStrings().channelUnlocked, sender, false);
     }
@@ -134,6 +134,38 @@ public class ConfigManager {
         return config.getInt(ConfigPaths.CACHEREFRESHRATE.getValue(), 150);
     }
 
+    public boolean getCacheConsistencyAudit() {
+        return config.getBoolean(ConfigPaths.CACHEAUDIT.getValue(), false);
+    }
+
+    public Integer getChunkPreloadPerTick() {
+        return config.getInt(ConfigPaths.CHUNKPRELOADPERTICK.getValue(), 16);
+    }
+
+    public Integer getChunkPreloadLimit() {
+        return config.getInt(ConfigPaths.CHUNKPRELOADLIMIT.getValue(), 0);
+    }
+
+    public boolean getDeferUnloadedReceivers() {
+        return config.getBoolean(ConfigPaths.DEFERUNLOADEDRECEIVERS.getValue(), false);
+    }
+
+    public Integer getToggleRateLimit() {
+        return config.getInt(ConfigPaths.TOGGLERATELIMIT.getValue(), 15);
+    }
+
+    public Integer getScreenMinRefreshInterval() {
+        return config.getInt(ConfigPaths.SCREENMINREFRESHINTERVAL.getValue(), 0);
+    }
+
+    public boolean getLegacyRedstoneEvents() {
+        return config.getBoolean(ConfigPaths.LEGACYREDSTONEEVENTS.getValue(), false);
+    }
+
+    public Integer getReceiverUpdateBudget() {
+        return config.getInt(ConfigPaths.RECEIVERUPDATEBUDGET.getValue(), 2);
+    }
+
     public String getLanguage() {
         return config.getString(ConfigPaths.LANGUAGE.getValue(), "en");
     }
@@ -158,6 +190,10 @@ public class ConfigManager {
         UPDATECHECK("CheckForUpdates"), CANCELCHUNKUNLOAD("cancelChunkUnloads"),
         CANCELCHUNKUNLOADRANGE("cancelChunkUnloadRange"), USEVAULT("UseVault"), SILENTMODE("SilentMode"),
         INTERACTTRANSMITTERTIME("InteractTransmitterTime"), CACHEREFRESHRATE("CacheRefreshFrequency"),
+        CACHEAUDIT("CacheConsistencyAudit"), RECEIVERUPDATEBUDGET("ReceiverUpdateBudget"),
+        DEFERUNLOADEDRECEIVERS("DeferUnloadedReceivers"), CHUNKPRELOADPERTICK("ChunkPreloadPerTick"),
+        CHUNKPRELOADLIMIT("ChunkPreloadLimit"), LEGACYREDSTONEEVENTS("LegacyRedstoneEvents"),
+        SCREENMINREFRESHINTERVAL("ScreenMinRefreshInterval"), TOGGLERATELIMIT("ToggleRateLimit"),
         GATELOGIC("gateLogic"), SAVEMODE("saveOption"), DROPSIGNBROKEN("DropSignWhenBroken"),
         METRICS("Metrics");
 
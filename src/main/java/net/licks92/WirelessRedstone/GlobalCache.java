@@ -1,105 +1,653 @@
 package net.licks92.WirelessRedstone;
 
+import net.licks92.WirelessRedstone.CacheSnapshot.PointEntry;
+import net.licks92.WirelessRedstone.Libs.PersistentLongMap;
 import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
 import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverSwitch;
+import net.licks92.WirelessRedstone.Signs.WirelessTransmitter;
 import net.licks92.WirelessRedstone.Storage.StorageType;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * In-memory model of all the channels. It is loaded from the storage once and after that kept up to date by the
+ * storage with delta operations (addChannel, addPoint, removePoint, removeChannel, renameChannel, updateChannel).
+ * Optionally it is compared with the storage every CacheRefreshFrequency seconds.
+ * <p>
+ * The state is published as an immutable {@link CacheSnapshot} through a single volatile field. Changes copy the parts
+ * they touch and publish a new snapshot, so readers on any thread always see one consistent state without locking.
+ */
 public class GlobalCache {
 
-    private Collection<WirelessChannel> allChannels = null;
-    private ArrayList<IWirelessPoint> allSigns = null;
-    private ArrayList<Location> allReceiverLocations = null;
-    private ArrayList<Location> allSignLocations = null;
+    private volatile CacheSnapshot snapshot = null;
     private BukkitTask refreshingTask = null;
 
     public GlobalCache(Integer refreshTime){
         //At plugin startup we have to directly update the cache.
         update(false);
 
+        if (!ConfigManager.getConfig().getCacheConsistencyAudit())
+            return;
+
         Integer timeInTicks = refreshTime * 20;
 
         refreshingTask = Bukkit.getScheduler().runTaskTimerAsynchronously(WirelessRedstone.getInstance(), new Runnable() {
             @Override
             public void run() {
-                update();
+                audit();
             }
         }, timeInTicks, timeInTicks);
     }
 
-    private void updateAllSigns(boolean async) {
-        if (async)
-            Bukkit.getServer().getScheduler().runTaskAsynchronously(WirelessRedstone.getInstance(), new Runnable() {
-                public void run() {
-                    updateList();
+    /**
+     * Reload everything from the storage. This throws away the current model, normally the deltas keep the cache up
+     * to date and this is only needed after bulk changes like a wipe or restore.
+     */
+    public void update() {
+        update(ConfigManager.getConfig().getStorageType() == StorageType.YAML); //Changed to sync as temp solution to avoid database locked exceptions
+    }
+
+    public void update(boolean async) {
+        if (!async) {
+            rebuild(WirelessRedstone.getStorage().getAllChannels(true));
+            return;
+        }
+
+        final CacheSnapshot startSnapshot = snapshot;
+        Bukkit.getServer().getScheduler().runTaskAsynchronously(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                final Collection<WirelessChannel> channels = WirelessRedstone.getStorage().getAllChannels(true);
+                Bukkit.getScheduler().runTask(WirelessRedstone.getInstance(), new Runnable() {
+                    @Override
+                    public void run() {
+                        if (snapshot != startSnapshot) {
+                            WirelessRedstone.getWRLogger().debug("Cache changed while reloading, running the reload again.");
+                            update(true);
+                            return;
+                        }
+                        rebuild(channels);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Compare the cache with the storage and reload it when they don't match. Runs async, the result is applied on
+     * the main thread. Deltas applied while the storage was read make the comparison meaningless, so the audit is
+     * skipped in that case.
+     */
+    private void audit() {
+        final CacheSnapshot startSnapshot = snapshot;
+        final Collection<WirelessChannel> channels = WirelessRedstone.getStorage().getAllChannels(true);
+        if (channels == null || startSnapshot == null)
+            return;
+
+        Bukkit.getScheduler().runTask(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                if (snapshot != startSnapshot) {
+                    WirelessRedstone.getWRLogger().debug("Cache changed during the consistency audit, skipping it.");
+                    return;
+                }
+
+                int differences = countDifferences(startSnapshot, channels);
+                if (differences == 0) {
+                    WirelessRedstone.getWRLogger().debug("Cache consistency audit passed.");
+                    return;
                 }
-            });
-        else {
-            updateList();
+
+                WirelessRedstone.getWRLogger().warning("The cache was out of sync with the storage (" + differences
+                        + " differences). Reloading it.");
+                rebuild(channels);
+            }
+        });
+    }
+
+    private int countDifferences(CacheSnapshot current, Collection<WirelessChannel> channels) {
+        int differences = 0;
+        int points = 0;
+
+        for (WirelessChannel channel : channels) {
+            if (channel == null)
+                continue;
+
+            WirelessChannel cached = current.getWirelessChannel(channel.getName());
+            if (cached == null || cached.isLocked() != channel.isLocked()) {
+                differences++;
+                continue;
+            }
+
+            for (IWirelessPoint point : getPoints(channel)) {
+                points++;
+                CachedPoint cachedPoint = current.getCachedPoint(point.getWorld(), point.getX(), point.getY(), point.getZ());
+                if (cachedPoint == null || cachedPoint.getChannel() != cached
+                        || cachedPoint.getPoint().getClass() != point.getClass())
+                    differences++;
+            }
         }
+
+        if (channels.size() != current.getAllChannels().size())
+            differences++;
+        if (points != current.getPointCount())
+            differences++;
+
+        return differences;
     }
 
-    private void updateList(){
-        ArrayList<IWirelessPoint> returnlist = new ArrayList<IWirelessPoint>();
-        ArrayList<Location> returnlistLocations = new ArrayList<Location>();
-        ArrayList<Location> returnReceiverLocations = new ArrayList<Location>();
-        Collection<WirelessChannel> returnChannelList = WirelessRedstone.getStorage().getAllChannels(true);
+    private synchronized void rebuild(Collection<WirelessChannel> channels) {
+        Changes changes = new Changes(CacheSnapshot.empty(ConfigManager.getConfig().getCancelChunkUnloadRange()));
+
+        if (channels != null) {
+            for (WirelessChannel channel : channels) {
+                if (channel == null || changes.getChannel(channel.getName()) != null)
+                    continue;
 
-        for (WirelessChannel channel : returnChannelList) {
-            try {
-                for (IWirelessPoint point : channel.getReceivers()) {
-                    returnlist.add(point);
-                    returnlistLocations.add(point.getLocation());
-                    returnReceiverLocations.add(point.getLocation());
+                changes.putChannel(channel);
+                for (IWirelessPoint point : getPoints(channel)) {
+                    changes.indexPoint(point, channel.getName());
                 }
+            }
+        }
+
+        snapshot = changes.publish();
+    }
+
+    // Deltas, they are synchronized so two writers can't publish over each other
+
+    /**
+     * Add a new channel and all its points. A cached channel with the same name is replaced. The cache owns the
+     * channel after this, it may not be changed anymore.
+     */
+    public synchronized void addChannel(WirelessChannel channel) {
+        if (channel == null || snapshot == null)
+            return;
+
+        Changes changes = new Changes(snapshot);
+        changes.removeChannel(channel.getName());
+        changes.putChannel(channel);
+        for (IWirelessPoint point : getPoints(channel)) {
+            changes.removePoint(point.getWorld(), point.getX(), point.getY(), point.getZ());
+            changes.indexPoint(point, channel.getName());
+        }
+        snapshot = changes.publish();
+    }
+
+    /**
+     * Add a point to a cached channel.
+     *
+     * @return false if the channel isn't cached
+     */
+    public synchronized boolean addPoint(String channelName, IWirelessPoint point) {
+        if (snapshot == null || point == null || snapshot.getWirelessChannel(channelName) == null)
+            return false;
+
+        Changes changes = new Changes(snapshot);
+        changes.removePoint(point.getWorld(), point.getX(), point.getY(), point.getZ());
+        WirelessChannel channel = changes.editChannel(channelName);
+        channel.addPoint(point);
+        changes.indexPoint(point, channel.getName());
+        snapshot = changes.publish();
+        return true;
+    }
+
+    /**
+     * Remove the point at a block from the cache and from its channel.
+     *
+     * @return the removed point or null if there wasn't a point at this block
+     */
+    public synchronized IWirelessPoint removePoint(String world, int x, int y, int z) {
+        if (snapshot == null || snapshot.getCachedPoint(world, x, y, z) == null)
+            return null;
+
+        Changes changes = new Changes(snapshot);
+        IWirelessPoint point = changes.removePoint(world, x, y, z);
+        snapshot = changes.publish();
+
+        if (point instanceof WirelessReceiverSwitch && WirelessRedstone.getSwitchStateStore() != null)
+            WirelessRedstone.getSwitchStateStore().remove(point);
+        return point;
+    }
+
+    /**
+     * Remove a channel and all its points from the cache.
+     */
+    public synchronized void removeChannel(String channelName) {
+        if (channelName == null || snapshot == null || snapshot.getWirelessChannel(channelName) == null)
+            return;
+
+        WirelessChannel channel = snapshot.getWirelessChannel(channelName);
+        Changes changes = new Changes(snapshot);
+        changes.removeChannel(channelName);
+        snapshot = changes.publish();
+
+        WirelessRedstone.getSignManager().setChannelActive(channelName, false);
+        if (WirelessRedstone.getSwitchStateStore() != null) {
+            for (WirelessReceiver receiver : channel.getReceivers()) {
+                if (receiver instanceof WirelessReceiverSwitch)
+                    WirelessRedstone.getSwitchStateStore().remove(receiver);
+            }
+        }
+    }
+
+    public synchronized void renameChannel(String channelName, String newChannelName) {
+        if (snapshot == null)
+            return;
+
+        Changes changes = new Changes(snapshot);
+        if (!changes.renameChannel(channelName, newChannelName))
+            return;
+        snapshot = changes.publish();
+
+        if (WirelessRedstone.getSignManager().setChannelActive(channelName, false))
+            WirelessRedstone.getSignManager().setChannelActive(newChannelName, true);
+    }
 
-                for (IWirelessPoint point : channel.getTransmitters()) {
-                    returnlist.add(point);
-                    returnlistLocations.add(point.getLocation());
+    /**
+     * Copy the channel settings (name, lock and owners) to the cached channel. The cached channel itself isn't
+     * changed, it's replaced by a copy with the new settings.
+     */
+    public synchronized void updateChannel(String channelName, WirelessChannel channel) {
+        if (snapshot == null || channel == null || snapshot.getWirelessChannel(channelName) == null)
+            return;
+
+        Changes changes = new Changes(snapshot);
+        WirelessChannel cached = changes.editChannel(channelName);
+        cached.setLocked(channel.isLocked());
+        cached.setOwners(channel.getOwners() != null ? new LinkedList<String>(channel.getOwners()) : new LinkedList<String>());
+
+        boolean renamed = !channelName.equalsIgnoreCase(channel.getName());
+        if (renamed)
+            changes.renameChannel(channelName, channel.getName());
+        snapshot = changes.publish();
+
+        if (renamed && WirelessRedstone.getSignManager().setChannelActive(channelName, false))
+            WirelessRedstone.getSignManager().setChannelActive(channel.getName(), true);
+    }
+
+    /**
+     * Work copy of a snapshot. Only the paths of the persistent indexes that are changed get copied, and a channel is
+     * copied the first time it's changed. The snapshot it started from stays as it is.
+     */
+    private static class Changes {
+
+        private final int chunkRange;
+        private final PersistentLongMap.Editor<WirelessChannel[]> channels;
+        private int channelCount;
+        private final HashMap<String, PersistentLongMap<PointEntry>> points;
+        private final HashMap<String, PersistentLongMap<Integer>> chunks;
+        private final HashMap<String, PersistentLongMap<Integer>> watched;
+        private final HashMap<String, PersistentLongMap.Editor<PointEntry>> pointEditors = new HashMap<>();
+        private final HashMap<String, PersistentLongMap.Editor<Integer>> chunkEditors = new HashMap<>();
+        private final HashMap<String, PersistentLongMap.Editor<Integer>> watchedEditors = new HashMap<>();
+        // Channels copied by this change, by lower case name
+        private final HashMap<String, WirelessChannel> copiedChannels = new HashMap<>();
+
+        private Changes(CacheSnapshot base) {
+            this.chunkRange = base.getChunkRange();
+            this.channels = base.getChannelIndex().edit();
+            this.channelCount = base.getChannelCount();
+            this.points = new HashMap<>(base.getPointIndex());
+            this.chunks = new HashMap<>(base.getChunkIndex());
+            this.watched = new HashMap<>(base.getWatchedIndex());
+        }
+
+        private WirelessChannel getChannel(String channelName) {
+            return CacheSnapshot.findChannel(channels.get(CacheSnapshot.getChannelKey(channelName)), channelName);
+        }
+
+        private void putChannel(WirelessChannel channel) {
+            long key = CacheSnapshot.getChannelKey(channel.getName());
+            WirelessChannel[] bucket = channels.get(key);
+            if (bucket == null) {
+                channels.put(key, new WirelessChannel[]{channel});
+                channelCount++;
+                return;
+            }
+
+            for (int i = 0; i < bucket.length; i++) {
+                if (bucket[i].getName().equalsIgnoreCase(channel.getName())) {
+                    WirelessChannel[] replaced = bucket.clone();
+                    replaced[i] = channel;
+                    channels.put(key, replaced);
+                    return;
                 }
+            }
+
+            WirelessChannel[] extended = Arrays.copyOf(bucket, bucket.length + 1);
+            extended[bucket.length] = channel;
+            channels.put(key, extended);
+            channelCount++;
+        }
+
+        private WirelessChannel takeChannel(String channelName) {
+            long key = CacheSnapshot.getChannelKey(channelName);
+            WirelessChannel[] bucket = channels.get(key);
+            if (bucket == null)
+                return null;
+
+            for (int i = 0; i < bucket.length; i++) {
+                if (!bucket[i].getName().equalsIgnoreCase(channelName))
+                    continue;
 
-                for (IWirelessPoint point : channel.getScreens()) {
-                    returnlist.add(point);
-                    returnlistLocations.add(point.getLocation());
+                if (bucket.length == 1) {
+                    channels.remove(key);
+                } else {
+                    WirelessChannel[] reduced = new WirelessChannel[bucket.length - 1];
+                    System.arraycopy(bucket, 0, reduced, 0, i);
+                    System.arraycopy(bucket, i + 1, reduced, i, bucket.length - i - 1);
+                    channels.put(key, reduced);
                 }
-            } catch (Exception ignored) {
+                copiedChannels.remove(channelName.toLowerCase());
+                channelCount--;
+                return bucket[i];
+            }
+            return null;
+        }
+
+        /**
+         * @return the copy of the channel that this change may modify, or null if there isn't such a channel
+         */
+        private WirelessChannel editChannel(String channelName) {
+            WirelessChannel copy = copiedChannels.get(channelName.toLowerCase());
+            if (copy != null)
+                return copy;
+
+            WirelessChannel channel = getChannel(channelName);
+            if (channel == null)
+                return null;
+
+            copy = channel.copy();
+            putChannel(copy);
+            copiedChannels.put(channelName.toLowerCase(), copy);
+            return copy;
+        }
+
+        private boolean renameChannel(String channelName, String newChannelName) {
+            WirelessChannel channel = editChannel(channelName);
+            if (channel == null)
+                return false;
+
+            takeChannel(channelName);
+            channel.setName(newChannelName);
+            putChannel(channel);
+            copiedChannels.put(newChannelName.toLowerCase(), channel);
 
+            // The points refer to their channel by name
+            for (IWirelessPoint point : getPoints(channel)) {
+                PersistentLongMap.Editor<PointEntry> worldIndex = getEditor(points, pointEditors, point.getWorld());
+                long key = WirelessRedstone.getUtils().getBlockKey(point.getX(), point.getY(), point.getZ());
+                PointEntry entry = worldIndex.get(key);
+                if (entry != null && entry.point == point)
+                    worldIndex.put(key, new PointEntry(point, newChannelName));
             }
+            return true;
+        }
+
+        private void indexPoint(IWirelessPoint point, String channelName) {
+            getEditor(points, pointEditors, point.getWorld()).put(
+                    WirelessRedstone.getUtils().getBlockKey(point.getX(), point.getY(), point.getZ()),
+                    new PointEntry(point, channelName));
+            protectChunks(getEditor(chunks, chunkEditors, point.getWorld()), point, chunkRange, true);
+            if (point instanceof WirelessTransmitter)
+                watchBlocks(getEditor(watched, watchedEditors, point.getWorld()), point, true);
         }
 
-        allChannels = returnChannelList;
-        allSigns = returnlist;
-        allSignLocations = returnlistLocations;
-        allReceiverLocations = returnReceiverLocations;
+        private void unindexPoint(IWirelessPoint point) {
+            protectChunks(getEditor(chunks, chunkEditors, point.getWorld()), point, chunkRange, false);
+            if (point instanceof WirelessTransmitter)
+                watchBlocks(getEditor(watched, watchedEditors, point.getWorld()), point, false);
+        }
+
+        private IWirelessPoint removePoint(String world, int x, int y, int z) {
+            if (!points.containsKey(world) && !pointEditors.containsKey(world))
+                return null;
+
+            PointEntry entry = getEditor(points, pointEditors, world).remove(WirelessRedstone.getUtils().getBlockKey(x, y, z));
+            if (entry == null)
+                return null;
+
+            WirelessChannel channel = editChannel(entry.channelName);
+            if (channel != null)
+                channel.removePoint(entry.point);
+            unindexPoint(entry.point);
+            return entry.point;
+        }
+
+        private void removeChannel(String channelName) {
+            WirelessChannel channel = takeChannel(channelName);
+            if (channel == null)
+                return;
+
+            for (IWirelessPoint point : getPoints(channel)) {
+                if (!points.containsKey(point.getWorld()) && !pointEditors.containsKey(point.getWorld()))
+                    continue;
+
+                PersistentLongMap.Editor<PointEntry> worldIndex = getEditor(points, pointEditors, point.getWorld());
+                long key = WirelessRedstone.getUtils().getBlockKey(point.getX(), point.getY(), point.getZ());
+                PointEntry entry = worldIndex.get(key);
+                if (entry != null && entry.point == point) {
+                    worldIndex.remove(key);
+                    unindexPoint(point);
+                }
+            }
+        }
+
+        private CacheSnapshot publish() {
+            finish(points, pointEditors);
+            finish(chunks, chunkEditors);
+            finish(watched, watchedEditors);
+            return new CacheSnapshot(channels.done(), points, chunks, watched, chunkRange, channelCount);
+        }
+
+        private static <V> PersistentLongMap.Editor<V> getEditor(HashMap<String, PersistentLongMap<V>> index,
+                                                                 HashMap<String, PersistentLongMap.Editor<V>> editors,
+                                                                 String world) {
+            PersistentLongMap.Editor<V> editor = editors.get(world);
+            if (editor == null) {
+                PersistentLongMap<V> worldIndex = index.get(world);
+                editor = (worldIndex != null ? worldIndex : PersistentLongMap.<V>empty()).edit();
+                editors.put(world, editor);
+            }
+            return editor;
+        }
+
+        private static <V> void finish(HashMap<String, PersistentLongMap<V>> index,
+                                       HashMap<String, PersistentLongMap.Editor<V>> editors) {
+            for (Map.Entry<String, PersistentLongMap.Editor<V>> entry : editors.entrySet()) {
+                PersistentLongMap<V> worldIndex = entry.getValue().done();
+                if (worldIndex.isEmpty())
+                    index.remove(entry.getKey());
+                else
+                    index.put(entry.getKey(), worldIndex);
+            }
+        }
     }
 
-    public void update() {
-        update(ConfigManager.getConfig().getStorageType() == StorageType.YAML); //Changed to sync as temp solution to avoid database locked exceptions
+    // Indexes
+
+    private static List<IWirelessPoint> getPoints(WirelessChannel channel) {
+        List<IWirelessPoint> points = new ArrayList<>();
+        points.addAll(channel.getReceivers());
+        points.addAll(channel.getTransmitters());
+        points.addAll(channel.getScreens());
+        return points;
     }
 
-    public void update(boolean async) {
-        updateAllSigns(async);
+    /*
+     * The chunks and blocks keep a count, so areas shared by multiple points stay in the index until the last point
+     * is removed.
+     */
+    private static void count(PersistentLongMap.Editor<Integer> counts, long key, boolean add) {
+        Integer count = counts.get(key);
+        if (add)
+            counts.put(key, count == null ? 1 : count + 1);
+        else if (count != null && count > 1)
+            counts.put(key, count - 1);
+        else if (count != null)
+            counts.remove(key);
+    }
+
+    /**
+     * Add or remove the chunks around a point to the chunks that shouldn't be unloaded.
+     */
+    private static void protectChunks(PersistentLongMap.Editor<Integer> worldChunks, IWirelessPoint point, int range,
+                                      boolean add) {
+        int centerX = point.getX() >> 4;
+        int centerZ = point.getZ() >> 4;
+        for (int dx = -range; dx <= range; dx++) {
+            for (int dz = -range; dz <= range; dz++) {
+                count(worldChunks, WirelessRedstone.getUtils().getChunkKey(centerX + dx, centerZ + dz), add);
+            }
+        }
     }
 
+    /**
+     * Add or remove the blocks within two blocks (walking along the axes) of a transmitter to the blocks where a
+     * redstone change has to be handled.
+     */
+    private static void watchBlocks(PersistentLongMap.Editor<Integer> worldBlocks, IWirelessPoint point, boolean add) {
+        for (int dx = -2; dx <= 2; dx++) {
+            for (int dy = -2; dy <= 2; dy++) {
+                for (int dz = -2; dz <= 2; dz++) {
+                    if (Math.abs(dx) + Math.abs(dy) + Math.abs(dz) > 2)
+                        continue;
+
+                    count(worldBlocks, WirelessRedstone.getUtils().getBlockKey(point.getX() + dx, point.getY() + dy,
+                            point.getZ() + dz), add);
+                }
+            }
+        }
+    }
+
+    // Getters
+
+    /**
+     * @return the current state of the cache or null if it hasn't been loaded yet. The snapshot never changes, get a
+     * new one to see later changes.
+     */
+    public CacheSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return all the channels or null if the cache hasn't been loaded yet
+     */
     public Collection<WirelessChannel> getAllChannels(){
-        return allChannels;
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getAllChannels() : null;
+    }
+
+    /**
+     * Get a channel by its name, ignoring the case.
+     *
+     * @param channelName name of the channel
+     * @return the cached channel or null if there isn't one
+     */
+    public WirelessChannel getWirelessChannel(String channelName) {
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getWirelessChannel(channelName) : null;
+    }
+
+    /**
+     * Get the wireless point at a block and the channel it belongs to.
+     *
+     * @return the cached point or null if there isn't a wireless point at this block
+     */
+    public CachedPoint getCachedPoint(String world, int x, int y, int z) {
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getCachedPoint(world, x, y, z) : null;
+    }
+
+    public CachedPoint getCachedPoint(Location loc) {
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getCachedPoint(loc) : null;
+    }
+
+    public IWirelessPoint getWirelessPoint(Location loc) {
+        CachedPoint cachedPoint = getCachedPoint(loc);
+        return cachedPoint != null ? cachedPoint.getPoint() : null;
+    }
+
+    public WirelessChannel getWirelessChannel(Location loc) {
+        CachedPoint cachedPoint = getCachedPoint(loc);
+        return cachedPoint != null ? cachedPoint.getChannel() : null;
+    }
+
+    /**
+     * @return true if there is a wireless point within cancelChunkUnloadRange chunks of this chunk
+     */
+    public boolean isChunkProtected(String world, int chunkX, int chunkZ) {
+        CacheSnapshot current = snapshot;
+        return current != null && current.isChunkProtected(world, chunkX, chunkZ);
+    }
+
+    /**
+     * @return true if a redstone change at this block could affect a transmitter, also true while the cache isn't
+     * loaded
+     */
+    public boolean isBlockWatched(String world, int x, int y, int z) {
+        CacheSnapshot current = snapshot;
+        return current == null || current.isBlockWatched(world, x, y, z);
+    }
+
+    /**
+     * @param blockKey the block packed with Utils.getBlockKey
+     */
+    public boolean isBlockWatched(String world, long blockKey) {
+        CacheSnapshot current = snapshot;
+        return current == null || current.isBlockWatched(world, blockKey);
+    }
+
+    public int getPointCount() {
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getPointCount() : 0;
     }
 
     public List<IWirelessPoint> getAllSigns() {
-        return allSigns;
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getAllSigns() : Collections.<IWirelessPoint>emptyList();
     }
 
     public List<Location> getAllReceiverLocations() {
-        return allReceiverLocations;
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getAllReceiverLocations() : Collections.<Location>emptyList();
     }
 
     public List<Location> getAllSignLocations() {
-        return allSignLocations;
+        CacheSnapshot current = snapshot;
+        return current != null ? current.getAllSignLocations() : Collections.<Location>emptyList();
+    }
+
+    public static class CachedPoint {
+
+        private final IWirelessPoint point;
+        private final WirelessChannel channel;
+
+        public CachedPoint(IWirelessPoint point, WirelessChannel channel) {
+            this.point = point;
+            this.channel = channel;
+        }
+
+        public IWirelessPoint getPoint() {
+            return point;
+        }
+
+        public WirelessChannel getChannel() {
+            return channel;
+        }
     }
 }
@@ -0,0 +1,161 @@
+package net.licks92.WirelessRedstone.Libs;
+
+/**
+ * Open addressing hash set with primitive long keys. Every key keeps a count, it stays in the set until it has been
+ * removed as many times as it was added. That way overlapping areas can be added and removed independently.
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private LongHashSet(LongHashSet other) {
+        this.keys = other.keys.clone();
+        this.counts = other.counts.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+        this.resizeAt = other.resizeAt;
+    }
+
+    public boolean contains(long key) {
+        int slot = hash(key) & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the key wasn't in the set before
+     */
+    public boolean add(long key) {
+        int slot = hash(key) & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size >= resizeAt)
+            rehash(counts.length << 1);
+        return true;
+    }
+
+    /**
+     * @return true if the key is no longer in the set
+     */
+    public boolean remove(long key) {
+        int slot = hash(key) & mask;
+        while (counts[slot] != 0) {
+            if (keys[slot] == key) {
+                if (--counts[slot] > 0)
+                    return false;
+
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return an independent copy of this set
+     */
+    public LongHashSet copy() {
+        return new LongHashSet(this);
+    }
+
+    /**
+     * @return the keys in this set, in no particular order
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int index = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0)
+                result[index++] = keys[i];
+        }
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+
+        for (int i = 0; i < oldCounts.length; i++) {
+            if (oldCounts[i] == 0)
+                continue;
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (counts[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+
+    // Close the gap left by a removed key so the probe chains stay intact
+    private void shiftBack(int slot) {
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while (counts[next] != 0) {
+            int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                counts[free] = counts[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        counts[free] = 0;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,389 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable hash trie with primitive long keys. A change returns a new map that shares everything except the changed
+ * path with the old one, so it costs O(log n) no matter how big the map is. A map never changes after it has been
+ * created and can be read from any thread without locking.
+ * <p>
+ * Multiple changes can be made at once with an {@link Editor}. The nodes an editor created itself are changed in
+ * place, only the nodes it got from the original map are copied. Null values are not allowed.
+ *
+ * @param <V> value type
+ */
+public final class PersistentLongMap<V> {
+
+    private static final int BITS = 5;
+    private static final PersistentLongMap<Object> EMPTY = new PersistentLongMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public V get(long key) {
+        return find(root, key);
+    }
+
+    public boolean containsKey(long key) {
+        return find(root, key) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a new map with this key set to the value
+     */
+    public PersistentLongMap<V> put(long key, V value) {
+        Editor<V> editor = edit();
+        editor.put(key, value);
+        return editor.done();
+    }
+
+    /**
+     * @return a new map without this key, or this map if the key isn't in it
+     */
+    public PersistentLongMap<V> remove(long key) {
+        if (!containsKey(key))
+            return this;
+
+        Editor<V> editor = edit();
+        editor.remove(key);
+        return editor.done();
+    }
+
+    /**
+     * @return an editor that starts from this map, this map itself isn't changed by it
+     */
+    public Editor<V> edit() {
+        return new Editor<>(root, size);
+    }
+
+    /**
+     * @return the keys of this map, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        collectKeys(root, result, 0);
+        return result;
+    }
+
+    /**
+     * @return the values of this map, in no particular order
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        collectValues(root, result);
+        return result;
+    }
+
+    /**
+     * Changes a copy of a map. Every change is visible to the editor right away, the resulting map is created by
+     * {@link #done()}. An editor may only be used by one thread and not after it's done.
+     */
+    public static final class Editor<V> {
+
+        private Node root;
+        private int size;
+        private boolean done = false;
+
+        // Set by put and remove
+        private Object previous;
+
+        private Editor(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public V get(long key) {
+            return find(root, key);
+        }
+
+        public boolean containsKey(long key) {
+            return find(root, key) != null;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the previous value or null if there wasn't one
+         */
+        @SuppressWarnings("unchecked")
+        public V put(long key, V value) {
+            checkNotDone();
+            if (value == null)
+                throw new IllegalArgumentException("Null values are not supported");
+
+            previous = null;
+            Leaf leaf = new Leaf(key, value);
+            if (root == null) {
+                root = new Node(this, 0, new Object[0]);
+            }
+            root = put(root, 0, mix(key), leaf);
+            return (V) previous;
+        }
+
+        /**
+         * @return the removed value or null if there wasn't one
+         */
+        @SuppressWarnings("unchecked")
+        public V remove(long key) {
+            checkNotDone();
+            if (root == null)
+                return null;
+
+            previous = null;
+            Object result = remove(root, 0, mix(key), key);
+            if (result == null)
+                root = null;
+            else if (result instanceof Leaf)
+                root = new Node(this, bit(mix(((Leaf) result).key), 0), new Object[]{result});
+            else
+                root = (Node) result;
+            return (V) previous;
+        }
+
+        /**
+         * @return the map with all the changes, the editor can't be used anymore after this
+         */
+        public PersistentLongMap<V> done() {
+            checkNotDone();
+            done = true;
+            if (size == 0)
+                return empty();
+            return new PersistentLongMap<>(root, size);
+        }
+
+        private void checkNotDone() {
+            if (done)
+                throw new IllegalStateException("The editor has already been used to create a map");
+        }
+
+        private Node editable(Node node) {
+            if (node.owner == this)
+                return node;
+            return new Node(this, node.bitmap, node.entries.clone());
+        }
+
+        private Node put(Node node, int shift, long hash, Leaf leaf) {
+            int bit = bit(hash, shift);
+            int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+            if ((node.bitmap & bit) == 0) {
+                Node result = editable(node);
+                result.entries = insert(result.entries, index, leaf);
+                result.bitmap |= bit;
+                size++;
+                return result;
+            }
+
+            Object entry = node.entries[index];
+            Object replacement;
+            if (entry instanceof Node) {
+                replacement = put((Node) entry, shift + BITS, hash, leaf);
+                if (replacement == entry)
+                    return node;
+            } else {
+                Leaf current = (Leaf) entry;
+                if (current.key == leaf.key) {
+                    previous = current.value;
+                    if (current.value == leaf.value)
+                        return node;
+                    replacement = leaf;
+                } else {
+                    replacement = split(shift + BITS, current, mix(current.key), leaf, hash);
+                    size++;
+                }
+            }
+
+            Node result = editable(node);
+            result.entries[index] = replacement;
+            return result;
+        }
+
+        // Two keys ended up in the same slot, move them down until their hashes differ
+        private Node split(int shift, Leaf first, long firstHash, Leaf second, long secondHash) {
+            int firstBit = bit(firstHash, shift);
+            int secondBit = bit(secondHash, shift);
+            if (firstBit == secondBit)
+                return new Node(this, firstBit, new Object[]{split(shift + BITS, first, firstHash, second, secondHash)});
+
+            // Compare the positions, the bit of position 31 is negative
+            boolean firstIsLower = slot(firstHash, shift) < slot(secondHash, shift);
+            Object[] entries = firstIsLower ? new Object[]{first, second} : new Object[]{second, first};
+            return new Node(this, firstBit | secondBit, entries);
+        }
+
+        /*
+         * Returns the node itself if the key isn't in it, null if the node is empty now, or the last leaf of the node
+         * so the parent can take its place.
+         */
+        private Object remove(Node node, int shift, long hash, long key) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0)
+                return node;
+
+            int index = Integer.bitCount(node.bitmap & (bit - 1));
+            Object entry = node.entries[index];
+            Object replacement;
+            if (entry instanceof Node) {
+                replacement = remove((Node) entry, shift + BITS, hash, key);
+                if (replacement == entry)
+                    return node;
+            } else {
+                Leaf current = (Leaf) entry;
+                if (current.key != key)
+                    return node;
+
+                previous = current.value;
+                size--;
+                replacement = null;
+            }
+
+            if (replacement == null) {
+                if (node.entries.length == 1)
+                    return null;
+
+                Node result = editable(node);
+                result.entries = delete(result.entries, index);
+                result.bitmap &= ~bit;
+                return collapse(result);
+            }
+
+            Node result = editable(node);
+            result.entries[index] = replacement;
+            return collapse(result);
+        }
+
+        private static Object collapse(Node node) {
+            if (node.entries.length == 1 && node.entries[0] instanceof Leaf)
+                return node.entries[0];
+            return node;
+        }
+    }
+
+    private static final class Node {
+
+        // The editor that may change this node in place
+        private final Object owner;
+        private int bitmap;
+        private Object[] entries;
+
+        private Node(Object owner, int bitmap, Object[] entries) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+    }
+
+    private static final class Leaf {
+
+        private final long key;
+        private final Object value;
+
+        private Leaf(long key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V find(Node node, long key) {
+        long hash = mix(key);
+        int shift = 0;
+        while (node != null) {
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0)
+                return null;
+
+            Object entry = node.entries[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (entry instanceof Leaf) {
+                Leaf leaf = (Leaf) entry;
+                return leaf.key == key ? (V) leaf.value : null;
+            }
+            node = (Node) entry;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    private static int collectKeys(Node node, long[] result, int index) {
+        if (node == null)
+            return index;
+
+        for (Object entry : node.entries) {
+            if (entry instanceof Leaf)
+                result[index++] = ((Leaf) entry).key;
+            else
+                index = collectKeys((Node) entry, result, index);
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void collectValues(Node node, List<V> result) {
+        if (node == null)
+            return;
+
+        for (Object entry : node.entries) {
+            if (entry instanceof Leaf)
+                result.add((V) ((Leaf) entry).value);
+            else
+                collectValues((Node) entry, result);
+        }
+    }
+
+    private static Object[] insert(Object[] entries, int index, Object entry) {
+        Object[] result = new Object[entries.length + 1];
+        System.arraycopy(entries, 0, result, 0, index);
+        result[index] = entry;
+        System.arraycopy(entries, index, result, index + 1, entries.length - index);
+        return result;
+    }
+
+    private static Object[] delete(Object[] entries, int index) {
+        Object[] result = new Object[entries.length - 1];
+        System.arraycopy(entries, 0, result, 0, index);
+        System.arraycopy(entries, index + 1, result, index, entries.length - index - 1);
+        return result;
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << slot(hash, shift);
+    }
+
+    private static int slot(long hash, int shift) {
+        return (int) ((hash >>> shift) & 31);
+    }
+
+    /*
+     * The mix can be reversed, so two different keys always have different hashes. At the last level (shift 60) the
+     * remaining 4 bits are enough to tell them apart, so the trie never needs collision lists.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -1,6 +1,7 @@
 package net.licks92.WirelessRedstone.Libs;
 
 import com.sun.rowset.CachedRowSetImpl;
+import net.licks92.WirelessRedstone.ConfigManager;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -15,30 +16,36 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The connection is shared by the main thread and the background flush. Everything that uses it holds the lock of
+ * this object, callers that read a result set have to hold it until the result set is closed.
+ */
 public class SQLite {
 
     private Plugin plugin;
     private String path;
     private Connection connection;
     private Boolean updateGlobalCache;
-    private Boolean lockTimer;
+    private volatile boolean lockTimer;
 
-    private ArrayList<PreparedStatement> preparedStatements;
-    private boolean isProcessing = false;
+    private final ConcurrentLinkedQueue<PreparedStatement> preparedStatements;
+    private final ScheduledExecutorService executor;
 
     public SQLite(Plugin plugin, String path, final Boolean updateGlobalCache) throws SQLException, ClassNotFoundException {
         this.plugin = plugin;
         this.path = path;
         this.updateGlobalCache = updateGlobalCache;
-        this.preparedStatements = new ArrayList<>();
+        this.preparedStatements = new ConcurrentLinkedQueue<>();
         this.lockTimer = false;
 
         if (connection == null) {
@@ -59,75 +66,51 @@ public class SQLite {
 
             SQLiteConfig config = new SQLiteConfig();
             config.setSharedCache(true);
+            config.enforceForeignKeys(true);
             connection = DriverManager.getConnection("jdbc:sqlite:" + plugin.getDataFolder().toPath().toString() + File.separator
                     + path, config.toProperties());
         }
 
-        final Timer timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerTask() {
+        this.executor = startFlushTimer();
+    }
+
+    /*
+     * Use a connection that has already been opened.
+     */
+    public SQLite(Connection connection, Boolean updateGlobalCache) {
+        this.connection = connection;
+        this.updateGlobalCache = updateGlobalCache;
+        this.preparedStatements = new ConcurrentLinkedQueue<>();
+        this.lockTimer = false;
+        this.executor = startFlushTimer();
+    }
+
+    private ScheduledExecutorService startFlushTimer() {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "WirelessRedstone-SQLite");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
-                if (WirelessRedstone.getInstance() == null) {
-                    timer.cancel();
-                    return;
-                }
-
-                if (!WirelessRedstone.getInstance().isEnabled()) { // Plugin was disabled
-                    timer.cancel();
+                if (WirelessRedstone.getInstance() == null || !WirelessRedstone.getInstance().isEnabled()) { // Plugin was disabled
+                    executor.shutdown();
                     return;
                 }
 
-                if (lockTimer)
-                    return;
-
-                boolean canContinue = false;
-                boolean error = false;
+                synchronized (SQLite.this) {
+                    if (lockTimer)
+                        return;
 
-                if (getConnection() != null) {
-                    try {
-                        if (preparedStatements.size() > 0) {
-                            canContinue = true;
-                            PreparedStatement preparedStatement = preparedStatements.get(0);
-
-                            if (preparedStatement == null) {
-                                preparedStatements.remove(0);
-                                return;
-                            }
-
-                            WirelessRedstone.getWRLogger().debug("Excuting next preparedstatement.");
-
-                            preparedStatement.execute();
-                            preparedStatement.close();
-
-                            if (updateGlobalCache) {
-                                if (WirelessRedstone.getGlobalCache() == null)
-                                    Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            WirelessRedstone.getGlobalCache().update(false); //We are already asking this async
-                                        }
-                                    }, 1L);
-                                else WirelessRedstone.getGlobalCache().update(false);
-                            }
-                        }
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                        error = true;
-                    } finally {
-                        if (canContinue) {
-                            preparedStatements.remove(0);
-                            if (!error) {
-                                if (preparedStatements.size() == 0) {
-                                    WirelessRedstone.getWRLogger().debug("No more preparedstatements left.");
-                                }
-                            } else {
-                                WirelessRedstone.getWRLogger().warning("An error occured. Please notify the developer.");
-                            }
-                        }
-                    }
+                    flushQueue(true);
                 }
             }
-        }, 0, 25);
+        }, 25, 25, TimeUnit.MILLISECONDS);
+        return executor;
     }
 
     public Connection openConnection() throws SQLException, ClassNotFoundException {
@@ -157,15 +140,27 @@ public class SQLite {
         return connection;
     }
 
+    /*
+     * Callers have to synchronize on this object while they use the connection.
+     */
     public Connection getConnection() {
         return connection;
     }
 
-    public void closeConnection() throws SQLException {
+    public synchronized PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    public synchronized void closeConnection() throws SQLException {
+        executor.shutdown();
+        flush();
         connection.close();
     }
 
-    public ResultSet query(final PreparedStatement preparedStatement) {
+    public synchronized ResultSet query(final PreparedStatement preparedStatement) {
+        // Pending writes have to be visible to the query
+        flush();
+
         try {
             return preparedStatement.executeQuery();
         } catch (SQLException e) {
@@ -215,31 +210,87 @@ public class SQLite {
     }
 
     /*
-     * Execute a query
+     * Queue a statement, it is executed with the other pending statements in one transaction.
      *
      * @param preparedStatement query to be executed.
      */
     public void execute(final PreparedStatement preparedStatement) {
+        if (preparedStatement != null)
+            preparedStatements.add(preparedStatement);
+    }
+
+    /*
+     * Execute all the pending statements now. The cache isn't notified, the caller is about to read or close.
+     */
+    public synchronized void flush() {
+        flushQueue(false);
+    }
+
+    private void flushQueue(boolean notifyCache) {
+        if (preparedStatements.isEmpty() || getConnection() == null)
+            return;
+
+        ArrayList<PreparedStatement> batch = new ArrayList<>();
+        PreparedStatement next;
+        while ((next = preparedStatements.poll()) != null) {
+            batch.add(next);
+        }
+
+        int errors = 0;
         try {
-            preparedStatement.execute();
-            preparedStatement.close();
+            connection.setAutoCommit(false);
+            for (PreparedStatement preparedStatement : batch) {
+                try {
+                    preparedStatement.execute();
+                } catch (SQLException e) {
+                    errors++;
+                    if (ConfigManager.getConfig().getDebugMode())
+                        e.printStackTrace();
+                } finally {
+                    // A statement that can't be closed doesn't undo the other statements of the batch
+                    try {
+                        preparedStatement.close();
+                    } catch (SQLException e) {
+                        if (ConfigManager.getConfig().getDebugMode())
+                            e.printStackTrace();
+                    }
+                }
+            }
+            connection.commit();
         } catch (SQLException e) {
             e.printStackTrace();
-            WirelessRedstone.getWRLogger().warning("An error occured. Please notify the developer.");
+            errors = batch.size();
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
         }
-//        execute(preparedStatement, updateGlobalCache);
-    }
 
-    /*
-    * Execute a query
-    *
-    * @param preparedStatement query to be executed.
-    * @param updateGlobalCache update the global cache
-    */
-    public void execute(final PreparedStatement preparedStatement, final Boolean updateGlobalCache) {
-        preparedStatements.add(preparedStatement);
+        WirelessRedstone.getWRLogger().debug("Executed " + batch.size() + " preparedstatements in one transaction.");
+        if (errors > 0)
+            WirelessRedstone.getWRLogger().warning("An error occured in " + errors + " of " + batch.size()
+                    + " preparedstatements. Please notify the developer.");
+
+        if (updateGlobalCache && notifyCache) {
+            if (WirelessRedstone.getGlobalCache() == null)
+                Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
+                    @Override
+                    public void run() {
+                        WirelessRedstone.getGlobalCache().update(false);
+                    }
+                }, 1L);
+            else WirelessRedstone.getGlobalCache().update(false);
+        }
     }
 
+    /*
+     * Stop the background flushes until unlockTime() is called. Explicit flushes still run.
+     */
     public void lockTimer(){
         this.lockTimer = true;
     }
@@ -0,0 +1,61 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+/**
+ * Remembers the World of a wireless point so Bukkit doesn't have to look it up by name every time. All handles are
+ * invalidated together when a world is loaded or unloaded, the next get() looks the world up again.
+ * A world that is being unloaded is still known to Bukkit until its unload event is over, so it is never cached.
+ */
+public final class WorldHandle {
+
+    private static volatile int generation = 0;
+    private static volatile String unloadingWorld = null;
+
+    private final String name;
+    private World world = null;
+    private int worldGeneration = -1;
+
+    public WorldHandle(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the world, null if it isn't loaded
+     */
+    public World get() {
+        int current = generation;
+        if (worldGeneration != current) {
+            if (name == null || name.equals(unloadingWorld)) {
+                // Don't remember the generation, the world is looked up again once another world is loaded
+                world = null;
+                return null;
+            }
+
+            world = Bukkit.getWorld(name);
+            worldGeneration = current;
+        }
+        return world;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Called when a world is loaded.
+     */
+    public static void invalidateAll() {
+        unloadingWorld = null;
+        generation++;
+    }
+
+    /**
+     * Called when a world is unloaded. Handles of that world return null from now on, even while Bukkit still knows it.
+     */
+    public static void invalidateAll(String unloadingWorld) {
+        WorldHandle.unloadingWorld = unloadingWorld;
+        generation++;
+    }
+}
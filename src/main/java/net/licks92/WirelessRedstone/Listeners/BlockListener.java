@@ -1,8 +1,11 @@
 package net.licks92.WirelessRedstone.Listeners;
 
+import net.licks92.WirelessRedstone.GlobalCache;
+import net.licks92.WirelessRedstone.Scheduler.RedstonePropagationQueue;
 import net.licks92.WirelessRedstone.Signs.SignType;
 import net.licks92.WirelessRedstone.Signs.WirelessChannel;
 import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
+import net.licks92.WirelessRedstone.Signs.WirelessTransmitter;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -19,6 +22,9 @@ import org.bukkit.material.Directional;
 
 public class BlockListener implements Listener {
 
+    private static final BlockFace[] NEIGHBOUR_FACES = {BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH,
+            BlockFace.WEST, BlockFace.UP, BlockFace.DOWN};
+
     @EventHandler
     public void onSignChange(final SignChangeEvent event) {
         if (event.getBlock().getState() instanceof Sign) {
@@ -200,6 +206,12 @@ public class BlockListener implements Listener {
         if (event.getOldCurrent() == event.getNewCurrent())
             return;
 
+        // Without the cache (e.g. while it's built) every block is handled
+        Block block = event.getBlock();
+        GlobalCache cache = WirelessRedstone.getGlobalCache();
+        if (cache != null && !cache.isBlockWatched(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()))
+            return;
+
         if (event.getBlock().getState() instanceof Sign) {
             Sign signObject = (Sign) event.getBlock().getState();
 
@@ -229,21 +241,19 @@ public class BlockListener implements Listener {
             return;
         }
 
-        BlockRedstoneEvent e = null;
+        RedstonePropagationQueue propagationQueue = WirelessRedstone.getRedstonePropagationQueue();
         switch (event.getBlock().getType()) {
             case DIODE:
             case DIODE_BLOCK_OFF:
             case DIODE_BLOCK_ON:
                 Directional directional = (Directional) event.getBlock().getState().getData();
-                e = new BlockRedstoneEvent(event.getBlock().getRelative(directional.getFacing()), event.getOldCurrent(), event.getNewCurrent());
-                callLater(e);
+                propagationQueue.queue(event.getBlock().getRelative(directional.getFacing()), event.getOldCurrent(), event.getNewCurrent());
                 break;
             case LEVER:
             case STONE_BUTTON:
             case WOOD_BUTTON:
                 Attachable attachable = (Attachable) event.getBlock().getState().getData();
-                e = new BlockRedstoneEvent(event.getBlock().getRelative(attachable.getAttachedFace()), event.getOldCurrent(), event.getNewCurrent());
-                callLater(e);
+                propagationQueue.queue(event.getBlock().getRelative(attachable.getAttachedFace()), event.getOldCurrent(), event.getNewCurrent());
                 break;
             case DETECTOR_RAIL:
             case WOOD_PLATE:
@@ -252,25 +262,32 @@ public class BlockListener implements Listener {
             case IRON_PLATE:
             case DAYLIGHT_DETECTOR:
             case DAYLIGHT_DETECTOR_INVERTED:
-                e = new BlockRedstoneEvent(event.getBlock().getRelative(BlockFace.DOWN), event.getOldCurrent(), event.getNewCurrent());
-                callLater(e);
+                propagationQueue.queue(event.getBlock().getRelative(BlockFace.DOWN), event.getOldCurrent(), event.getNewCurrent());
                 break;
             default:
                 break;
         }
 
-        for (BlockFace blockFace : WirelessRedstone.getUtils().getEveryBlockFace(true)) {
-            if (event.getBlock().getRelative(blockFace).getState() instanceof Sign) {
-                Sign signObject = (Sign) event.getBlock().getRelative(blockFace).getState();
-
-                if (WirelessRedstone.getSignManager().getSignType(signObject.getLine(0)) == SignType.TRANSMITTER) {
-                    e = new BlockRedstoneEvent(signObject.getBlock(), event.getOldCurrent(), event.getNewCurrent());
-                    callLater(e);
-                }
-            }
+        // Only transmitter signs are handled, other signs aren't queued
+        for (BlockFace blockFace : NEIGHBOUR_FACES) {
+            Block relative = event.getBlock().getRelative(blockFace);
+            if ((relative.getType() == Material.SIGN_POST || relative.getType() == Material.WALL_SIGN)
+                    && isTransmitter(cache, relative))
+                propagationQueue.queue(relative, event.getOldCurrent(), event.getNewCurrent());
         }
     }
 
+    /**
+     * @return true if the cache has a transmitter at this block, always true while the cache isn't loaded
+     */
+    private boolean isTransmitter(GlobalCache cache, Block block) {
+        if (cache == null || cache.getSnapshot() == null)
+            return true;
+
+        GlobalCache.CachedPoint cachedPoint = cache.getCachedPoint(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+        return cachedPoint != null && cachedPoint.getPoint() instanceof WirelessTransmitter;
+    }
+
     private boolean createSign(Player player, String channelName, String signType, String signSubType, BlockEvent event) {
         switch (WirelessRedstone.getSignManager().getSignType(signType, signSubType)) {
             case TRANSMITTER:
@@ -382,16 +399,6 @@ public class BlockListener implements Listener {
         return false;
     }
 
-    private void callLater(final BlockRedstoneEvent event) {
-        Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(),
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        Bukkit.getServer().getPluginManager().callEvent(event);
-                    }
-                }, 1L);
-    }
-
     private String autoAssign(Player p, Block b, String line) {
         String name = line;
         if (line.equalsIgnoreCase("[auto]")) {
@@ -142,35 +142,7 @@ public class PlayerListener implements Listener {
     }
 
     private boolean signAlreadyExist(Location loc, String schannel) {
-        boolean exist = false;
-        WirelessChannel channel = WirelessRedstone.getStorage().getWirelessChannel(schannel);
-        if (channel == null)
-            return false;
-
-        for (WirelessReceiver receiver : channel.getReceivers()) {
-            if (WirelessRedstone.getUtils().sameLocation(loc, receiver.getLocation())) {
-                exist = true;
-                break;
-            }
-        }
-
-        if (!exist) {
-            for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-                if (WirelessRedstone.getUtils().sameLocation(loc, transmitter.getLocation())) {
-                    exist = true;
-                    break;
-                }
-            }
-        }
-
-        if (!exist) {
-            for (WirelessScreen screen : channel.getScreens()) {
-                if (WirelessRedstone.getUtils().sameLocation(loc, screen.getLocation())) {
-                    exist = true;
-                    break;
-                }
-            }
-        }
-        return exist;
+        WirelessChannel channel = WirelessRedstone.getGlobalCache().getWirelessChannel(loc);
+        return channel != null && channel.getName().equalsIgnoreCase(schannel);
     }
 }
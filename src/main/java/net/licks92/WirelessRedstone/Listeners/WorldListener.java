@@ -1,13 +1,16 @@
 package net.licks92.WirelessRedstone.Listeners;
 
 import net.licks92.WirelessRedstone.ConfigManager;
-import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
+import net.licks92.WirelessRedstone.Libs.WorldHandle;
 import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Chunk;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
-
-import java.util.List;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 public class WorldListener implements Listener {
 
@@ -16,26 +19,28 @@ public class WorldListener implements Listener {
     @EventHandler
     public void onChunkUnload(ChunkUnloadEvent event) {
         if (!event.isCancelled()) {
-            if (ConfigManager.getConfig().getCancelChunkUnload()) {
-                try {
-                    List<IWirelessPoint> points = WirelessRedstone.getGlobalCache().getAllSigns();
-                    for (IWirelessPoint point : points) {
-                        if (Math.abs(event.getChunk().getX() - point.getLocation().getBlock().getChunk().getX())
-                                > ConfigManager.getConfig().getCancelChunkUnloadRange()) {
-                            continue;
-                        }
-                        if (Math.abs(event.getChunk().getZ() - point.getLocation().getBlock().getChunk().getZ())
-                                > ConfigManager.getConfig().getCancelChunkUnloadRange()) {
-                            continue;
-                        }
-
-                        event.setCancelled(true);
-                        return;
-                    }
-                } catch (Exception ignored) {
-                }
+            if (ConfigManager.getConfig().getCancelChunkUnload() && WirelessRedstone.getGlobalCache() != null) {
+                Chunk chunk = event.getChunk();
+                if (WirelessRedstone.getGlobalCache().isChunkProtected(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()))
+                    event.setCancelled(true);
             }
         }
     }
 
+    @EventHandler
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (WirelessRedstone.getDeferredReceiverUpdates() != null && WirelessRedstone.getDeferredReceiverUpdates().isEnabled())
+            WirelessRedstone.getDeferredReceiverUpdates().onChunkLoad(event.getChunk());
+    }
+
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        WorldHandle.invalidateAll();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        WorldHandle.invalidateAll(event.getWorld().getName());
+    }
+
 }
@@ -0,0 +1,212 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessTransmitter;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Collects the toggles of the channels during a tick. Only the last requested state of every channel is applied, so a
+ * channel whose transmitters turn on and off in the same tick doesn't rewrite its receivers and screens every time.
+ * The states are applied after the redstone changes of the tick have been passed on, or in the next tick.
+ * <p>
+ * Channels that are turned on or off more than ToggleRateLimit times in one second (20 ticks) are suspended for a few
+ * seconds and a warning is logged.
+ */
+public class ChannelToggleCoalescer {
+
+    private static final int WINDOW_TICKS = 20;
+    private static final int SUSPEND_TICKS = 100;
+
+    private final int toggleRateLimit;
+    private LinkedHashMap<String, PendingToggle> pending = new LinkedHashMap<>();
+    private final HashMap<String, ToggleWindow> windows = new HashMap<>();
+    private final HashMap<String, Long> suspendedUntil = new HashMap<>();
+    private BukkitTask task = null;
+    private BukkitTask tickTask = null;
+    private long currentTick = 0;
+
+    public ChannelToggleCoalescer() {
+        this(ConfigManager.getConfig().getToggleRateLimit());
+    }
+
+    /**
+     * @param toggleRateLimit toggles of one channel per 20 ticks before it's suspended, 0 or less to disable the check
+     */
+    ChannelToggleCoalescer(int toggleRateLimit) {
+        this.toggleRateLimit = toggleRateLimit;
+    }
+
+    /**
+     * Request a state for a channel, it replaces the state requested earlier in this tick.
+     */
+    public void request(WirelessChannel channel, boolean on) {
+        PendingToggle toggle = pending.get(channel.getName().toLowerCase());
+        if (toggle == null) {
+            pending.put(channel.getName().toLowerCase(), new PendingToggle(channel, on));
+        } else {
+            // The channel might have been reloaded in the meantime, the latest object is used
+            toggle.channel = channel;
+            toggle.on = on;
+            toggle.requests++;
+        }
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTask(WirelessRedstone.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    task = null;
+                    flush();
+                }
+            });
+        }
+    }
+
+    /**
+     * Apply the requested states now.
+     */
+    public void flush() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (pending.isEmpty())
+            return;
+
+        // Applying a state can toggle other channels, those are collected for the next flush
+        List<PendingToggle> toggles = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+
+        for (PendingToggle toggle : toggles) {
+            if (toggle.requests > 1)
+                WirelessRedstone.getWRLogger().debug("Merged " + toggle.requests + " toggles of channel "
+                        + toggle.channel.getName() + " into one.");
+
+            if (isSuspended(toggle.channel.getName().toLowerCase()))
+                continue;
+
+            try {
+                if (toggle.channel.applyToggle(toggle.on))
+                    countToggle(toggle.channel);
+            } catch (RuntimeException e) {
+                WirelessRedstone.getWRLogger().severe("Error while toggling channel " + toggle.channel.getName()
+                        + ". Please turn the debug mode on to get more informations.");
+
+                if (ConfigManager.getConfig().getDebugMode())
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return the amount of channels waiting to be toggled
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    private boolean isSuspended(String channelKey) {
+        Long until = suspendedUntil.get(channelKey);
+        return until != null && currentTick < until;
+    }
+
+    /*
+     * A transmitter next to a receiver of its own channel, or two channels that power each other, toggle again in the
+     * next flush. That is once or twice per tick, so the toggles are counted over 20 ticks. A channel on the fastest
+     * redstone clock toggles about 10 times in that window.
+     */
+    private void countToggle(WirelessChannel channel) {
+        if (toggleRateLimit <= 0)
+            return;
+
+        if (tickTask == null)
+            startTickTask();
+
+        String channelKey = channel.getName().toLowerCase();
+        ToggleWindow window = windows.get(channelKey);
+        if (window == null || currentTick - window.start >= WINDOW_TICKS) {
+            window = new ToggleWindow(currentTick);
+            windows.put(channelKey, window);
+        }
+        if (++window.count <= toggleRateLimit)
+            return;
+
+        // Kept in memory only, the channel works again after the suspension or a restart
+        windows.remove(channelKey);
+        suspendedUntil.put(channelKey, currentTick + SUSPEND_TICKS);
+
+        StringBuilder transmitters = new StringBuilder();
+        int listed = 0;
+        for (WirelessTransmitter transmitter : channel.getTransmitters()) {
+            if (listed == 5) {
+                transmitters.append(", ...");
+                break;
+            }
+            transmitters.append(listed == 0 ? "" : ", ").append(transmitter.getWorld()).append(" ")
+                    .append(transmitter.getX()).append(",").append(transmitter.getY()).append(",").append(transmitter.getZ());
+            listed++;
+        }
+
+        WirelessRedstone.getWRLogger().warning("Channel " + channel.getName() + " toggled more than " + toggleRateLimit
+                + " times in one second and is ignored for " + (SUSPEND_TICKS / 20) + " seconds, it's probably powering"
+                + " itself. Transmitters: " + (listed == 0 ? "none" : transmitters.toString()) + ".");
+    }
+
+    /*
+     * Counts the ticks while there are toggle counts or suspensions, windows and suspensions that are over are dropped.
+     */
+    private void startTickTask() {
+        tickTask = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                currentTick++;
+
+                Iterator<ToggleWindow> windowIterator = windows.values().iterator();
+                while (windowIterator.hasNext()) {
+                    if (currentTick - windowIterator.next().start >= WINDOW_TICKS)
+                        windowIterator.remove();
+                }
+                Iterator<Long> suspensions = suspendedUntil.values().iterator();
+                while (suspensions.hasNext()) {
+                    if (suspensions.next() <= currentTick)
+                        suspensions.remove();
+                }
+
+                if (windows.isEmpty() && suspendedUntil.isEmpty()) {
+                    tickTask.cancel();
+                    tickTask = null;
+                }
+            }
+        }, 1L, 1L);
+    }
+
+    private static class ToggleWindow {
+
+        private final long start;
+        private int count = 0;
+
+        private ToggleWindow(long start) {
+            this.start = start;
+        }
+    }
+
+    private static class PendingToggle {
+
+        private WirelessChannel channel;
+        private boolean on;
+        private int requests = 1;
+
+        private PendingToggle(WirelessChannel channel, boolean on) {
+            this.channel = channel;
+            this.on = on;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.Libs.LongHashSet;
+import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the chunks around all the wireless signs at startup. Every chunk is only loaded once, even when many signs are
+ * close to each other, and the chunks are loaded in small batches over multiple ticks so the startup doesn't block.
+ * Chunks closest to the signs are loaded first, a world never gets more chunks than ChunkPreloadLimit.
+ */
+public class ChunkPreloader {
+
+    private final List<WorldChunks> worlds = new ArrayList<>();
+    private final int chunksPerTick;
+    private final int total;
+
+    private int worldIndex = 0;
+    private int loaded = 0;
+    private int nextReport;
+    private long startTime;
+    private BukkitTask task = null;
+
+    public ChunkPreloader(Collection<IWirelessPoint> points) {
+        int range = ConfigManager.getConfig().getCancelChunkUnloadRange();
+        int limit = ConfigManager.getConfig().getChunkPreloadLimit();
+        this.chunksPerTick = Math.max(1, ConfigManager.getConfig().getChunkPreloadPerTick());
+
+        Map<String, List<IWirelessPoint>> pointsByWorld = new LinkedHashMap<>();
+        for (IWirelessPoint point : points) {
+            List<IWirelessPoint> worldPoints = pointsByWorld.get(point.getWorld());
+            if (worldPoints == null) {
+                worldPoints = new ArrayList<>();
+                pointsByWorld.put(point.getWorld(), worldPoints);
+            }
+            worldPoints.add(point);
+        }
+
+        int count = 0;
+        for (Map.Entry<String, List<IWirelessPoint>> entry : pointsByWorld.entrySet()) {
+            if (Bukkit.getWorld(entry.getKey()) == null)
+                continue; // world currently not loaded.
+
+            WorldChunks worldChunks = new WorldChunks(entry.getKey(), entry.getValue(), range, limit);
+            if (worldChunks.size == 0)
+                continue;
+
+            worlds.add(worldChunks);
+            count += worldChunks.size;
+        }
+        this.total = count;
+    }
+
+    /**
+     * @return the amount of unique chunks that will be loaded
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public void start() {
+        if (total == 0)
+            return;
+
+        WirelessRedstone.getWRLogger().info("Loading " + total + " chunks around wireless signs in " + worlds.size()
+                + " world(s), " + chunksPerTick + " chunks per tick.");
+        startTime = System.currentTimeMillis();
+        nextReport = total / 4;
+
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                loadBatch();
+            }
+        }, 1L, 1L);
+    }
+
+    public void cancel() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+
+    private void loadBatch() {
+        int batch = 0;
+        while (batch < chunksPerTick && worldIndex < worlds.size()) {
+            WorldChunks worldChunks = worlds.get(worldIndex);
+            if (worldChunks.index >= worldChunks.size) {
+                worldIndex++;
+                continue;
+            }
+
+            long key = worldChunks.keys[worldChunks.index++];
+            loaded++;
+
+            World world = Bukkit.getWorld(worldChunks.world);
+            if (world == null) {
+                // The world was unloaded in the meantime
+                loaded += worldChunks.size - worldChunks.index;
+                worldChunks.index = worldChunks.size;
+                continue;
+            }
+
+            int chunkX = (int) (key >> 32);
+            int chunkZ = (int) key;
+            if (world.isChunkLoaded(chunkX, chunkZ))
+                continue;
+
+            world.loadChunk(chunkX, chunkZ);
+            batch++;
+        }
+
+        if (loaded >= nextReport && loaded < total) {
+            WirelessRedstone.getWRLogger().debug("Loaded " + loaded + "/" + total + " chunks ("
+                    + (loaded * 100 / total) + "%)");
+            nextReport += Math.max(1, total / 4);
+        }
+
+        if (worldIndex >= worlds.size()) {
+            WirelessRedstone.getWRLogger().info("Loaded " + total + " chunks around wireless signs in "
+                    + (System.currentTimeMillis() - startTime) + "ms.");
+            cancel();
+        }
+    }
+
+    private static class WorldChunks {
+
+        private final String world;
+        private long[] keys = new long[64];
+        private int size = 0;
+        private int index = 0;
+
+        /*
+         * Walk the rings around the signs from the inside out, so the closest chunks are kept when the limit is hit.
+         * Signs in the same chunk share their rings, every chunk with signs is only walked once.
+         */
+        private WorldChunks(String world, List<IWirelessPoint> points, int range, int limit) {
+            this.world = world;
+
+            LongHashSet centerKeys = new LongHashSet(points.size());
+            int[] centersX = new int[points.size()];
+            int[] centersZ = new int[points.size()];
+            int centers = 0;
+            for (IWirelessPoint point : points) {
+                int centerX = point.getX() >> 4;
+                int centerZ = point.getZ() >> 4;
+                if (centerKeys.add(WirelessRedstone.getUtils().getChunkKey(centerX, centerZ))) {
+                    centersX[centers] = centerX;
+                    centersZ[centers] = centerZ;
+                    centers++;
+                }
+            }
+
+            LongHashSet seen = new LongHashSet(centers * 4);
+            boolean limited = false;
+            rings:
+            for (int ring = 0; ring <= range; ring++) {
+                for (int i = 0; i < centers; i++) {
+                    if (!addRing(seen, centersX[i], centersZ[i], ring, limit)) {
+                        limited = true;
+                        break rings;
+                    }
+                }
+            }
+
+            if (limited)
+                WirelessRedstone.getWRLogger().warning("The world " + world + " needs more than " + limit
+                        + " chunks around wireless signs, only the closest " + limit
+                        + " chunks are loaded. Raise ChunkPreloadLimit to load them all.");
+        }
+
+        /*
+         * Only the border of the ring is walked, the chunks inside it belong to the smaller rings.
+         *
+         * Returns false when the limit is hit.
+         */
+        private boolean addRing(LongHashSet seen, int centerX, int centerZ, int ring, int limit) {
+            if (ring == 0)
+                return addChunk(seen, centerX, centerZ, limit);
+
+            for (int d = -ring; d <= ring; d++) {
+                if (!addChunk(seen, centerX + d, centerZ - ring, limit) || !addChunk(seen, centerX + d, centerZ + ring, limit))
+                    return false;
+            }
+            for (int d = -ring + 1; d < ring; d++) {
+                if (!addChunk(seen, centerX - ring, centerZ + d, limit) || !addChunk(seen, centerX + ring, centerZ + d, limit))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean addChunk(LongHashSet seen, int chunkX, int chunkZ, int limit) {
+            long key = WirelessRedstone.getUtils().getChunkKey(chunkX, chunkZ);
+            if (seen.contains(key))
+                return true;
+            if (limit > 0 && size >= limit)
+                return false;
+
+            seen.add(key);
+            add(key);
+            return true;
+        }
+
+        private void add(long key) {
+            if (size == keys.length)
+                keys = Arrays.copyOf(keys, size * 2);
+            keys[size++] = key;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.Libs.LongObjectHashMap;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverClock;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drives all the clock receivers from one repeating task. Clocks with the same period that fire on the same tick are
+ * put in one group, the groups are kept in a hashed timing wheel with a slot per tick. Starting or stopping a clock
+ * doesn't depend on the amount of running clocks.
+ */
+public class ClockScheduler {
+
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final List<List<ClockGroup>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final HashMap<Long, ClockGroup> groups = new HashMap<>();
+    private final HashMap<String, LongObjectHashMap<ClockEntry>> clocksByLocation = new HashMap<>();
+    private final HashMap<String, Set<ClockEntry>> clocksByChannel = new HashMap<>();
+
+    private long currentTick = 0;
+    private int clockCount = 0;
+    private BukkitTask task = null;
+
+    public ClockScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<ClockGroup>());
+        }
+    }
+
+    /**
+     * Start a clock. It turns on at the next tick and toggles every delay ms after that. Starting a clock that is
+     * already running does nothing.
+     *
+     * @param clock       clock receiver
+     * @param channelName channel of the receiver
+     */
+    public void start(WirelessReceiverClock clock, String channelName) {
+        long key = WirelessRedstone.getUtils().getBlockKey(clock.getX(), clock.getY(), clock.getZ());
+        LongObjectHashMap<ClockEntry> worldClocks = clocksByLocation.get(clock.getWorld());
+        if (worldClocks == null) {
+            worldClocks = new LongObjectHashMap<>();
+            clocksByLocation.put(clock.getWorld(), worldClocks);
+        } else if (worldClocks.containsKey(key)) {
+            return;
+        }
+
+        int period = Math.max(1, clock.getDelay() / 50);
+        long firstTick = currentTick + 1;
+        long phase = firstTick % period;
+        long groupKey = ((long) period << 32) | phase;
+
+        ClockGroup group = groups.get(groupKey);
+        if (group == null) {
+            group = new ClockGroup(groupKey, period, firstTick);
+            groups.put(groupKey, group);
+            schedule(group);
+        }
+
+        ClockEntry entry = new ClockEntry(clock, channelName, key, group);
+        group.members.add(entry);
+        worldClocks.put(key, entry);
+
+        Set<ClockEntry> channelClocks = clocksByChannel.get(channelName.toLowerCase());
+        if (channelClocks == null) {
+            channelClocks = new LinkedHashSet<>();
+            clocksByChannel.put(channelName.toLowerCase(), channelClocks);
+        }
+        channelClocks.add(entry);
+
+        clockCount++;
+        if (task == null)
+            startTask();
+
+        WirelessRedstone.getWRLogger().debug("Clock started on channel: " + channelName + " with a period of "
+                + period + " ticks");
+    }
+
+    /**
+     * Stop a single clock.
+     *
+     * @return false if the clock wasn't running
+     */
+    public boolean stop(WirelessReceiverClock clock) {
+        LongObjectHashMap<ClockEntry> worldClocks = clocksByLocation.get(clock.getWorld());
+        if (worldClocks == null)
+            return false;
+
+        ClockEntry entry = worldClocks.get(WirelessRedstone.getUtils().getBlockKey(clock.getX(), clock.getY(), clock.getZ()));
+        if (entry == null)
+            return false;
+
+        remove(entry);
+        return true;
+    }
+
+    /**
+     * Stop all the clocks of a channel.
+     */
+    public void stopChannel(String channelName) {
+        Set<ClockEntry> channelClocks = clocksByChannel.get(channelName.toLowerCase());
+        if (channelClocks == null)
+            return;
+
+        for (ClockEntry entry : new ArrayList<>(channelClocks)) {
+            remove(entry);
+        }
+    }
+
+    public void stopAll() {
+        groups.clear();
+        clocksByLocation.clear();
+        clocksByChannel.clear();
+        for (List<ClockGroup> slot : wheel) {
+            slot.clear();
+        }
+        clockCount = 0;
+        stopTask();
+    }
+
+    /**
+     * @return the amount of running clocks
+     */
+    public int size() {
+        return clockCount;
+    }
+
+    private void remove(ClockEntry entry) {
+        if (entry.stopped)
+            return;
+        entry.stopped = true;
+
+        LongObjectHashMap<ClockEntry> worldClocks = clocksByLocation.get(entry.clock.getWorld());
+        if (worldClocks != null) {
+            worldClocks.remove(entry.key);
+            if (worldClocks.isEmpty())
+                clocksByLocation.remove(entry.clock.getWorld());
+        }
+
+        Set<ClockEntry> channelClocks = clocksByChannel.get(entry.channelName.toLowerCase());
+        if (channelClocks != null) {
+            channelClocks.remove(entry);
+            if (channelClocks.isEmpty())
+                clocksByChannel.remove(entry.channelName.toLowerCase());
+        }
+
+        // Empty groups stay in the wheel until their slot comes by, they are dropped there
+        ClockGroup group = entry.group;
+        group.members.remove(entry);
+        if (group.members.isEmpty()) {
+            group.cancelled = true;
+            groups.remove(group.key);
+        }
+
+        clockCount--;
+        if (clockCount == 0) {
+            for (List<ClockGroup> slot : wheel) {
+                slot.clear();
+            }
+            stopTask();
+        }
+
+        WirelessRedstone.getWRLogger().debug("Stopped clock on channel: " + entry.channelName);
+    }
+
+    private void schedule(ClockGroup group) {
+        wheel.get((int) (group.nextTick & WHEEL_MASK)).add(group);
+    }
+
+    private void tick() {
+        currentTick++;
+
+        List<ClockGroup> slot = wheel.get((int) (currentTick & WHEEL_MASK));
+        if (slot.isEmpty())
+            return;
+
+        List<ClockGroup> due = new ArrayList<>();
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            ClockGroup group = slot.get(i);
+            if (group.cancelled) {
+                removeAt(slot, i);
+            } else if (group.nextTick == currentTick) {
+                removeAt(slot, i);
+                due.add(group);
+            }
+        }
+
+        for (ClockGroup group : due) {
+            group.nextTick += group.period;
+            schedule(group);
+
+            // Turning receivers on or off can start or stop other clocks, so don't iterate over the group itself
+            for (ClockEntry entry : new ArrayList<>(group.members)) {
+                if (entry.stopped)
+                    continue;
+
+                entry.on = !entry.on;
+                entry.clock.clockTick(entry.channelName, entry.on);
+            }
+        }
+    }
+
+    // The order of the groups in a slot doesn't matter
+    private static void removeAt(List<ClockGroup> slot, int index) {
+        int last = slot.size() - 1;
+        slot.set(index, slot.get(last));
+        slot.remove(last);
+    }
+
+    private void startTask() {
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 1L, 1L);
+    }
+
+    private void stopTask() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+
+    private static class ClockGroup {
+
+        private final long key;
+        private final int period;
+        private final Set<ClockEntry> members = new LinkedHashSet<>();
+        private long nextTick;
+        private boolean cancelled = false;
+
+        private ClockGroup(long key, int period, long nextTick) {
+            this.key = key;
+            this.period = period;
+            this.nextTick = nextTick;
+        }
+    }
+
+    private static class ClockEntry {
+
+        private final WirelessReceiverClock clock;
+        private final String channelName;
+        private final long key;
+        private final ClockGroup group;
+        private boolean on = false;
+        private boolean stopped = false;
+
+        private ClockEntry(WirelessReceiverClock clock, String channelName, long key, ClockGroup group) {
+            this.clock = clock;
+            this.channelName = channelName;
+            this.key = key;
+            this.group = group;
+        }
+    }
+}
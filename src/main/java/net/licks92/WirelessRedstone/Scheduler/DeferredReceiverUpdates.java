@@ -0,0 +1,159 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.GlobalCache;
+import net.licks92.WirelessRedstone.Libs.LongObjectHashMap;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps the state of receivers in unloaded chunks when DeferUnloadedReceivers is enabled. Instead of loading the chunk
+ * the last state of every receiver is remembered per chunk, it's applied when the chunk is loaded again. This way
+ * cancelChunkUnloads can be turned off without receivers missing updates.
+ */
+public class DeferredReceiverUpdates {
+
+    private final boolean enabled;
+    private final HashMap<String, LongObjectHashMap<LongObjectHashMap<PendingState>>> pendingByWorld = new HashMap<>();
+    private int size = 0;
+
+    public DeferredReceiverUpdates() {
+        this.enabled = ConfigManager.getConfig().getDeferUnloadedReceivers();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if updates of this receiver are deferred because its chunk isn't loaded
+     */
+    public boolean isDeferred(WirelessReceiver receiver) {
+        if (!enabled)
+            return false;
+
+        World world = receiver.getBukkitWorld();
+        return world != null && !world.isChunkLoaded(receiver.getX() >> 4, receiver.getZ() >> 4);
+    }
+
+    /**
+     * Remember the state of a receiver if its chunk isn't loaded. A later state of the same receiver replaces this one.
+     *
+     * @param on true for a torch, false for a sign
+     * @return true if the update is deferred and shouldn't be applied now
+     */
+    public boolean defer(WirelessReceiver receiver, boolean on) {
+        if (!isDeferred(receiver))
+            return false;
+
+        LongObjectHashMap<LongObjectHashMap<PendingState>> worldPending = pendingByWorld.get(receiver.getWorld());
+        if (worldPending == null) {
+            worldPending = new LongObjectHashMap<>();
+            pendingByWorld.put(receiver.getWorld(), worldPending);
+        }
+
+        long chunkKey = WirelessRedstone.getUtils().getChunkKey(receiver.getX() >> 4, receiver.getZ() >> 4);
+        LongObjectHashMap<PendingState> chunkPending = worldPending.get(chunkKey);
+        if (chunkPending == null) {
+            chunkPending = new LongObjectHashMap<>(4);
+            worldPending.put(chunkKey, chunkPending);
+        }
+
+        long blockKey = WirelessRedstone.getUtils().getBlockKey(receiver.getX(), receiver.getY(), receiver.getZ());
+        if (chunkPending.put(blockKey, new PendingState(receiver, on)) == null)
+            size++;
+        return true;
+    }
+
+    /**
+     * Apply the remembered states of a chunk that has just been loaded. They are applied one tick later, blocks
+     * shouldn't be changed while the chunk is being loaded.
+     */
+    public void onChunkLoad(Chunk chunk) {
+        LongObjectHashMap<LongObjectHashMap<PendingState>> worldPending = pendingByWorld.get(chunk.getWorld().getName());
+        if (worldPending == null)
+            return;
+
+        final LongObjectHashMap<PendingState> chunkPending = worldPending.remove(
+                WirelessRedstone.getUtils().getChunkKey(chunk.getX(), chunk.getZ()));
+        if (chunkPending == null)
+            return;
+
+        if (worldPending.isEmpty())
+            pendingByWorld.remove(chunk.getWorld().getName());
+        size -= chunkPending.size();
+
+        Bukkit.getScheduler().runTask(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                apply(chunkPending.values());
+            }
+        });
+    }
+
+    /**
+     * Apply all the remembered states, this loads their chunks. Used when the plugin is disabled.
+     */
+    public void flush() {
+        List<PendingState> states = new ArrayList<>(size);
+        for (LongObjectHashMap<LongObjectHashMap<PendingState>> worldPending : pendingByWorld.values()) {
+            for (LongObjectHashMap<PendingState> chunkPending : worldPending.values()) {
+                states.addAll(chunkPending.values());
+            }
+        }
+        pendingByWorld.clear();
+        size = 0;
+
+        for (PendingState state : states) {
+            World world = state.receiver.getBukkitWorld();
+            if (world != null)
+                world.loadChunk(state.receiver.getX() >> 4, state.receiver.getZ() >> 4);
+        }
+        apply(states);
+    }
+
+    /**
+     * @return the amount of receivers waiting for their chunk to be loaded
+     */
+    public int size() {
+        return size;
+    }
+
+    private void apply(List<PendingState> states) {
+        for (PendingState state : states) {
+            GlobalCache cache = WirelessRedstone.getGlobalCache();
+            if (cache == null) {
+                String channelName = WirelessRedstone.getStorage().getWirelessChannelName(state.receiver.getLocation());
+                if (channelName != null)
+                    state.receiver.updateBlock(channelName, state.on);
+                continue;
+            }
+
+            // The receiver might have been removed while its chunk was unloaded
+            GlobalCache.CachedPoint cachedPoint = cache.getCachedPoint(state.receiver.getWorld(),
+                    state.receiver.getX(), state.receiver.getY(), state.receiver.getZ());
+            if (cachedPoint == null || !(cachedPoint.getPoint() instanceof WirelessReceiver))
+                continue;
+
+            ((WirelessReceiver) cachedPoint.getPoint()).updateBlock(cachedPoint.getChannel().getName(), state.on);
+        }
+    }
+
+    private static class PendingState {
+
+        private final WirelessReceiver receiver;
+        private final boolean on;
+
+        private PendingState(WirelessReceiver receiver, boolean on) {
+            this.receiver = receiver;
+            this.on = on;
+        }
+    }
+}
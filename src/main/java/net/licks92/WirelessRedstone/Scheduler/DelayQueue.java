@@ -0,0 +1,153 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs delayed receiver actions from one repeating task. Actions are put in a bucket for the tick they are due in,
+ * inside the bucket they are grouped per channel and run as one batch.
+ * <p>
+ * Every action has a target, e.g. the location of a receiver. When a second action for the same target is due in the
+ * same tick it replaces the first one, so an on that is immediately followed by an off never runs. Exclusive actions
+ * also replace the pending action of their target in any other tick.
+ */
+public class DelayQueue {
+
+    private final HashMap<Long, Map<String, Map<String, Runnable>>> buckets = new HashMap<>();
+    private final HashMap<String, Long> exclusiveTicks = new HashMap<>();
+
+    private long currentTick = 0;
+    private int pending = 0;
+    private BukkitTask task = null;
+
+    /**
+     * Run an action after a delay.
+     *
+     * @param channelName  channel the action belongs to, actions are batched per channel
+     * @param target       what the action changes, a later action for the same target in the same tick replaces this one
+     * @param delayInTicks delay in ticks, at least one tick
+     * @param action       the action
+     */
+    public void schedule(String channelName, String target, int delayInTicks, Runnable action) {
+        add(currentTick + Math.max(1, delayInTicks), channelName.toLowerCase(), target, action);
+    }
+
+    /**
+     * Run an action after a delay and drop the pending action of the same target, no matter when it was due.
+     */
+    public void scheduleExclusive(String channelName, String target, int delayInTicks, Runnable action) {
+        String channelKey = channelName.toLowerCase();
+        Long previousTick = exclusiveTicks.remove(target);
+        if (previousTick != null)
+            removeAction(previousTick, channelKey, target);
+
+        long dueTick = currentTick + Math.max(1, delayInTicks);
+        add(dueTick, channelKey, target, action);
+        exclusiveTicks.put(target, dueTick);
+    }
+
+    /**
+     * Drop all the pending actions.
+     */
+    public void clear() {
+        buckets.clear();
+        exclusiveTicks.clear();
+        pending = 0;
+        stopTask();
+    }
+
+    /**
+     * @return the amount of actions waiting to be run
+     */
+    public int size() {
+        return pending;
+    }
+
+    private void add(long dueTick, String channelKey, String target, Runnable action) {
+        Map<String, Map<String, Runnable>> bucket = buckets.get(dueTick);
+        if (bucket == null) {
+            bucket = new LinkedHashMap<>();
+            buckets.put(dueTick, bucket);
+        }
+
+        Map<String, Runnable> batch = bucket.get(channelKey);
+        if (batch == null) {
+            batch = new LinkedHashMap<>();
+            bucket.put(channelKey, batch);
+        }
+
+        if (batch.put(target, action) == null)
+            pending++;
+
+        if (task == null)
+            startTask();
+    }
+
+    private void removeAction(long dueTick, String channelKey, String target) {
+        Map<String, Map<String, Runnable>> bucket = buckets.get(dueTick);
+        if (bucket == null)
+            return;
+
+        Map<String, Runnable> batch = bucket.get(channelKey);
+        if (batch == null || batch.remove(target) == null)
+            return;
+
+        pending--;
+        if (batch.isEmpty())
+            bucket.remove(channelKey);
+        if (bucket.isEmpty())
+            buckets.remove(dueTick);
+    }
+
+    private void tick() {
+        currentTick++;
+
+        Map<String, Map<String, Runnable>> bucket = buckets.remove(currentTick);
+        if (bucket != null) {
+            for (Map.Entry<String, Map<String, Runnable>> batch : bucket.entrySet()) {
+                for (Map.Entry<String, Runnable> action : batch.getValue().entrySet()) {
+                    pending--;
+                    Long exclusiveTick = exclusiveTicks.get(action.getKey());
+                    if (exclusiveTick != null && exclusiveTick == currentTick)
+                        exclusiveTicks.remove(action.getKey());
+
+                    try {
+                        action.getValue().run();
+                    } catch (RuntimeException e) {
+                        WirelessRedstone.getWRLogger().severe("Error while running a delayed action of channel "
+                                + batch.getKey() + ". Please turn the debug mode on to get more informations.");
+
+                        if (ConfigManager.getConfig().getDebugMode())
+                            e.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        if (buckets.isEmpty())
+            stopTask();
+    }
+
+    private void startTask() {
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 1L, 1L);
+    }
+
+    private void stopTask() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+}
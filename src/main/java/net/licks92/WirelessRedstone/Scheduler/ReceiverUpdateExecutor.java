@@ -0,0 +1,222 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.Signs.ChannelPlan;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Updates receivers within a time budget per tick (ReceiverUpdateBudget). Small channels are updated right away, big
+ * channels continue in the next ticks where they stopped. The updates of one channel always run in the order they
+ * were submitted, different channels take turns.
+ * <p>
+ * The targets come from a ChannelPlan and are sorted by chunk. A channel only stops between two chunks, so all the
+ * receivers of a chunk change in the same tick.
+ */
+public class ReceiverUpdateExecutor {
+
+    private final LinkedHashMap<String, ArrayDeque<UpdateJob>> jobsByChannel = new LinkedHashMap<>();
+    private final Set<String> warnedChannels = new HashSet<>();
+
+    private long spentNanos = 0;
+    private int backlog = 0;
+    private boolean processing = false;
+    private BukkitTask task = null;
+
+    /**
+     * Update receivers of a channel. The update starts in this tick if there is budget left.
+     *
+     * @param channelName channel of the receivers
+     * @param receivers   receivers to update, the list must not be changed afterwards
+     * @param update      what to do with every receiver
+     */
+    public void submit(String channelName, List<ChannelPlan.Target> receivers, ReceiverUpdate update) {
+        if (receivers.isEmpty())
+            return;
+
+        String channelKey = channelName.toLowerCase();
+        ArrayDeque<UpdateJob> jobs = jobsByChannel.get(channelKey);
+        if (jobs == null) {
+            jobs = new ArrayDeque<>();
+            jobsByChannel.put(channelKey, jobs);
+        }
+        jobs.add(new UpdateJob(channelName, receivers, update));
+        backlog += receivers.size();
+
+        drain();
+    }
+
+    /**
+     * @return the amount of receivers waiting to be updated
+     */
+    public int getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * @return the amount of receivers of a channel waiting to be updated
+     */
+    public int getBacklog(String channelName) {
+        ArrayDeque<UpdateJob> jobs = jobsByChannel.get(channelName.toLowerCase());
+        if (jobs == null)
+            return 0;
+
+        int count = 0;
+        for (UpdateJob job : jobs) {
+            count += job.receivers.size() - job.index;
+        }
+        return count;
+    }
+
+    /**
+     * Run all the waiting updates now, used when the plugin is disabled.
+     */
+    public void flush() {
+        while (!jobsByChannel.isEmpty()) {
+            process(Long.MAX_VALUE);
+        }
+        stopTask();
+    }
+
+    private void drain() {
+        // Updating a receiver can submit new updates, they are picked up by the loop that is already running
+        if (processing)
+            return;
+
+        int budget = ConfigManager.getConfig().getReceiverUpdateBudget();
+        long budgetNanos = budget > 0 ? budget * 1000000L : Long.MAX_VALUE;
+        if (spentNanos < budgetNanos) {
+            long start = System.nanoTime();
+            processing = true;
+            try {
+                process(budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + (budgetNanos - spentNanos));
+            } finally {
+                processing = false;
+            }
+            spentNanos += System.nanoTime() - start;
+        }
+
+        // The task resets the budget every tick, it stops after a tick without work
+        if (task == null)
+            startTask();
+    }
+
+    /*
+     * Every channel gets a turn, a channel that still has work after its turn goes to the back of the line.
+     */
+    private void process(long deadline) {
+        while (!jobsByChannel.isEmpty()) {
+            Map.Entry<String, ArrayDeque<UpdateJob>> entry = jobsByChannel.entrySet().iterator().next();
+            ArrayDeque<UpdateJob> jobs = entry.getValue();
+            UpdateJob job = jobs.peek();
+
+            boolean finished = job.run(deadline);
+            jobsByChannel.remove(entry.getKey());
+            if (finished) {
+                jobs.poll();
+                job.report();
+            }
+            if (!jobs.isEmpty())
+                jobsByChannel.put(entry.getKey(), jobs);
+
+            if (!finished)
+                return;
+        }
+    }
+
+    private void tick() {
+        spentNanos = 0;
+        if (jobsByChannel.isEmpty()) {
+            stopTask();
+            return;
+        }
+
+        for (ArrayDeque<UpdateJob> jobs : jobsByChannel.values()) {
+            jobs.peek().ticks++;
+        }
+        drain();
+    }
+
+    private void startTask() {
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 1L, 1L);
+    }
+
+    private void stopTask() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+
+    public interface ReceiverUpdate {
+        void update(ChannelPlan.Target target);
+    }
+
+    private class UpdateJob {
+
+        private final String channelName;
+        private final List<ChannelPlan.Target> receivers;
+        private final ReceiverUpdate update;
+        private int index = 0;
+        private int ticks = 1;
+
+        private UpdateJob(String channelName, List<ChannelPlan.Target> receivers, ReceiverUpdate update) {
+            this.channelName = channelName;
+            this.receivers = receivers;
+            this.update = update;
+        }
+
+        /**
+         * @return true if all the receivers have been updated
+         */
+        private boolean run(long deadline) {
+            try {
+                while (index < receivers.size()) {
+                    ChannelPlan.Target target = receivers.get(index++);
+                    backlog--;
+                    update.update(target);
+
+                    if (index < receivers.size() && !target.sameChunk(receivers.get(index))
+                            && System.nanoTime() >= deadline)
+                        return false;
+                }
+            } catch (RuntimeException e) {
+                WirelessRedstone.getWRLogger().severe("Error while updating the receivers of channel " + channelName
+                        + ". Please turn the debug mode on to get more informations.");
+
+                if (ConfigManager.getConfig().getDebugMode())
+                    e.printStackTrace();
+
+                backlog -= receivers.size() - index;
+                index = receivers.size();
+            }
+            return true;
+        }
+
+        private void report() {
+            if (ticks <= 1)
+                return;
+
+            String message = "Updating the " + receivers.size() + " receivers of channel " + channelName + " took "
+                    + ticks + " ticks.";
+            if (warnedChannels.add(channelName.toLowerCase()))
+                WirelessRedstone.getWRLogger().warning(message + " Consider splitting this channel or raising ReceiverUpdateBudget.");
+            else
+                WirelessRedstone.getWRLogger().debug(message);
+        }
+    }
+}
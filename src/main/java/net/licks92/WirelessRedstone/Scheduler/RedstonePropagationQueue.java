@@ -0,0 +1,116 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.GlobalCache;
+import net.licks92.WirelessRedstone.Libs.LongObjectHashMap;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.event.block.BlockRedstoneEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Collects the redstone changes the plugin passes on to other blocks (diodes, levers, buttons, plates and signs next
+ * to a powered block) and calls them in the next tick from one task. Changes of the same block in one tick are merged
+ * into one event, a change that ends where it started is dropped.
+ */
+public class RedstonePropagationQueue {
+
+    private HashMap<String, LongObjectHashMap<PendingChange>> pendingByWorld = new HashMap<>();
+    private List<PendingChange> pending = new ArrayList<>();
+    private boolean scheduled = false;
+
+    /**
+     * Call a BlockRedstoneEvent for this block in the next tick.
+     */
+    public void queue(Block block, int oldCurrent, int newCurrent) {
+        String world = block.getWorld().getName();
+        GlobalCache cache = WirelessRedstone.getGlobalCache();
+        if (cache != null && !cache.isBlockWatched(world, block.getX(), block.getY(), block.getZ()))
+            return; // Nothing of this plugin listens to this block
+
+        LongObjectHashMap<PendingChange> worldPending = pendingByWorld.get(world);
+        if (worldPending == null) {
+            worldPending = new LongObjectHashMap<>();
+            pendingByWorld.put(world, worldPending);
+        }
+
+        long key = WirelessRedstone.getUtils().getBlockKey(block.getX(), block.getY(), block.getZ());
+        PendingChange change = worldPending.get(key);
+        if (change != null) {
+            // Keep the current the block had at the start of the tick
+            change.newCurrent = newCurrent;
+            return;
+        }
+
+        change = new PendingChange(block, oldCurrent, newCurrent);
+        worldPending.put(key, change);
+        pending.add(change);
+
+        if (!scheduled) {
+            scheduled = true;
+            Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    process();
+                }
+            }, 1L);
+        }
+    }
+
+    /**
+     * @return the amount of events waiting for the next tick
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    private void process() {
+        // Events called now can queue new changes, those are for the next tick
+        List<PendingChange> changes = pending;
+        pending = new ArrayList<>();
+        pendingByWorld = new HashMap<>();
+        scheduled = false;
+
+        int dropped = 0;
+        for (PendingChange change : changes) {
+            if (change.oldCurrent == change.newCurrent) {
+                dropped++;
+                continue;
+            }
+
+            try {
+                Bukkit.getServer().getPluginManager().callEvent(
+                        new BlockRedstoneEvent(change.block, change.oldCurrent, change.newCurrent));
+            } catch (RuntimeException e) {
+                WirelessRedstone.getWRLogger().severe("Error while passing on a redstone change. "
+                        + "Please turn the debug mode on to get more informations.");
+
+                if (ConfigManager.getConfig().getDebugMode())
+                    e.printStackTrace();
+            }
+        }
+
+        if (dropped > 0)
+            WirelessRedstone.getWRLogger().debug("Dropped " + dropped + " redstone changes that were undone in the same tick.");
+
+        // The channels toggled by these events are turned on or off now instead of in the next tick
+        WirelessRedstone.getChannelToggleCoalescer().flush();
+    }
+
+    private static class PendingChange {
+
+        private final Block block;
+        private final int oldCurrent;
+        private int newCurrent;
+
+        private PendingChange(Block block, int oldCurrent, int newCurrent) {
+            this.block = block;
+            this.oldCurrent = oldCurrent;
+            this.newCurrent = newCurrent;
+        }
+    }
+}
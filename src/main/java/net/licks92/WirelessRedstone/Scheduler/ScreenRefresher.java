@@ -0,0 +1,125 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.Libs.LongObjectHashMap;
+import net.licks92.WirelessRedstone.Signs.WirelessScreen;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the state of the screens once per tick, grouped per chunk. Only the last state of a screen in a tick is
+ * written, screens that already show it are skipped. A screen isn't rewritten faster than ScreenMinRefreshInterval,
+ * the latest state is written when the interval has passed.
+ */
+public class ScreenRefresher {
+
+    private HashMap<String, LongObjectHashMap<LongObjectHashMap<PendingScreen>>> pendingByWorld = new HashMap<>();
+    private int size = 0;
+    private BukkitTask task = null;
+
+    /**
+     * Show a state on a screen with the next refresh, it replaces the state requested earlier.
+     */
+    public void request(WirelessScreen screen, boolean active) {
+        LongObjectHashMap<LongObjectHashMap<PendingScreen>> worldPending = pendingByWorld.get(screen.getWorld());
+        if (worldPending == null) {
+            worldPending = new LongObjectHashMap<>();
+            pendingByWorld.put(screen.getWorld(), worldPending);
+        }
+
+        long chunkKey = WirelessRedstone.getUtils().getChunkKey(screen.getX() >> 4, screen.getZ() >> 4);
+        LongObjectHashMap<PendingScreen> chunkPending = worldPending.get(chunkKey);
+        if (chunkPending == null) {
+            chunkPending = new LongObjectHashMap<>(4);
+            worldPending.put(chunkKey, chunkPending);
+        }
+
+        long blockKey = WirelessRedstone.getUtils().getBlockKey(screen.getX(), screen.getY(), screen.getZ());
+        if (chunkPending.put(blockKey, new PendingScreen(screen, active)) == null)
+            size++;
+
+        if (task == null)
+            startTask();
+    }
+
+    /**
+     * Write all the waiting states now, ignoring the refresh interval. Used when the plugin is disabled.
+     */
+    public void flush() {
+        refresh(0);
+        stopTask();
+    }
+
+    /**
+     * @return the amount of screens waiting to be refreshed
+     */
+    public int size() {
+        return size;
+    }
+
+    private void refresh(long minInterval) {
+        HashMap<String, LongObjectHashMap<LongObjectHashMap<PendingScreen>>> current = pendingByWorld;
+        pendingByWorld = new HashMap<>();
+        size = 0;
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, LongObjectHashMap<LongObjectHashMap<PendingScreen>>> world : current.entrySet()) {
+            for (LongObjectHashMap<PendingScreen> chunkPending : world.getValue().values()) {
+                for (PendingScreen pending : chunkPending.values()) {
+                    try {
+                        // Screens that have to wait for the refresh interval are tried again next tick
+                        if (!pending.screen.render(pending.active, now, minInterval))
+                            request(pending.screen, pending.active);
+                    } catch (RuntimeException e) {
+                        WirelessRedstone.getWRLogger().severe("Error while refreshing a screen in world " + world.getKey()
+                                + ". Please turn the debug mode on to get more informations.");
+
+                        if (ConfigManager.getConfig().getDebugMode())
+                            e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private void tick() {
+        if (size == 0) {
+            stopTask();
+            return;
+        }
+
+        refresh(ConfigManager.getConfig().getScreenMinRefreshInterval());
+    }
+
+    private void startTask() {
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 1L, 1L);
+    }
+
+    private void stopTask() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+
+    private static class PendingScreen {
+
+        private final WirelessScreen screen;
+        private final boolean active;
+
+        private PendingScreen(WirelessScreen screen, boolean active) {
+            this.screen = screen;
+            this.active = active;
+        }
+    }
+}
@@ -10,7 +10,6 @@ import net.licks92.WirelessRedstone.Signs.WirelessReceiverInverter;
 import net.licks92.WirelessRedstone.Signs.WirelessReceiverSwitch;
 import net.licks92.WirelessRedstone.Signs.WirelessScreen;
 import net.licks92.WirelessRedstone.Signs.WirelessTransmitter;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
@@ -19,14 +18,13 @@ import org.bukkit.block.Sign;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SignManager {
 
-    public HashMap<Integer, String> clockTasks = new HashMap<Integer, String>();
-    public HashMap<Location, Boolean> switchState = new HashMap<Location, Boolean>();
-    public ArrayList<String> activeChannels = new ArrayList<String>();
+    private final Set<String> activeChannels = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     //Create
 
@@ -156,7 +154,6 @@ public class SignManager {
             WirelessRedstone.getUtils().sendFeedback(WirelessRedstone.getStrings().channelExtended, player, false);
         }
 
-        WirelessRedstone.getGlobalCache().update();
         return true;
 
     }
@@ -210,7 +207,6 @@ public class SignManager {
             WirelessRedstone.getUtils().sendFeedback(WirelessRedstone.getStrings().channelExtended, player, false);
         }
 
-        WirelessRedstone.getGlobalCache().update();
         return true;
     }
 
@@ -263,7 +259,6 @@ public class SignManager {
             WirelessRedstone.getUtils().sendFeedback(WirelessRedstone.getStrings().channelExtended, player, false);
         }
 
-        WirelessRedstone.getGlobalCache().update();
         return true;
     }
 
@@ -271,7 +266,6 @@ public class SignManager {
 
     public boolean removeWirelessReceiver(String cname, Location loc) {
         if (WirelessRedstone.getStorage().removeWirelessReceiver(cname, loc)) {
-            WirelessRedstone.getGlobalCache().update();
             return true;
         } else
             return false;
@@ -279,7 +273,6 @@ public class SignManager {
 
     public boolean removeWirelessTransmitter(String cname, Location loc) {
         if (WirelessRedstone.getStorage().removeWirelessTransmitter(cname, loc)) {
-            WirelessRedstone.getGlobalCache().update();
             return true;
         } else
             return false;
@@ -287,7 +280,6 @@ public class SignManager {
 
     public boolean removeWirelessScreen(String cname, Location loc) {
         if (WirelessRedstone.getStorage().removeWirelessScreen(cname, loc)) {
-            WirelessRedstone.getGlobalCache().update();
             return true;
         } else
             return false;
@@ -358,134 +350,92 @@ public class SignManager {
     }
 
     public SignType getSignType(String data, String extraData) {
-        if (isTransmitter(data))
-            return SignType.TRANSMITTER;
+        SignType type = WirelessRedstone.getStringManager().getSignTag(data);
+        if (type == SignType.RECEIVER && extraData != null)
+            return getReceiverType(extraData);
 
-        if (isScreen(data))
-            return SignType.SCREEN;
-
-        if (isReceiver(data))
-            if (extraData == null)
-                return SignType.RECEIVER;
-            else
-                return getReceiverType(extraData);
-
-        return null;
+        return type;
     }
 
     public SignType getReceiverType(String data) {
-        if (data == null)
-            return SignType.RECEIVER_NORMAL;
-
-        if (isReceiverInverter(data))
-            return SignType.RECEIVER_INVERTER;
-
-        if (isReceiverDelayer(data))
-            return SignType.RECEIVER_DELAYER;
-
-        if (isReceiverClock(data))
-            return SignType.RECEIVER_CLOCK;
-
-        if (isReceiverSwitch(data))
-            return SignType.RECEIVER_SWITCH;
-
-        return SignType.RECEIVER_NORMAL;
+        SignType type = WirelessRedstone.getStringManager().getReceiverTypeTag(data);
+        return type == null ? SignType.RECEIVER_NORMAL : type;
     }
 
     //Checkers
 
     public boolean isTransmitter(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsTransmitter) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getSignTag(data) == SignType.TRANSMITTER;
     }
 
     public boolean isScreen(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsScreen) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getSignTag(data) == SignType.SCREEN;
     }
 
     public boolean isReceiver(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiver) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getSignTag(data) == SignType.RECEIVER;
     }
 
     public boolean isReceiverDefault(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiverDefaultType) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getReceiverTypeTag(data) == SignType.RECEIVER_NORMAL;
     }
 
     public boolean isReceiverInverter(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiverInverterType) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getReceiverTypeTag(data) == SignType.RECEIVER_INVERTER;
     }
 
     public boolean isReceiverDelayer(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiverDelayerType) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getReceiverTypeTag(data) == SignType.RECEIVER_DELAYER;
     }
 
     public boolean isReceiverClock(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiverClockType) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getReceiverTypeTag(data) == SignType.RECEIVER_CLOCK;
     }
 
     public boolean isReceiverSwitch(String data) {
-        for (String tag : WirelessRedstone.getStringManager().tagsReceiverSwitchType) {
-            if (data.equalsIgnoreCase(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return WirelessRedstone.getStringManager().getReceiverTypeTag(data) == SignType.RECEIVER_SWITCH;
     }
 
     public boolean hasAccessToChannel(Player player, String channelname) {
-        if (WirelessRedstone.getStorage().getWirelessChannel(channelname) != null) {
+        WirelessChannel channel = WirelessRedstone.getStorage().getWirelessChannel(channelname);
+        if (channel != null) {
             return WirelessRedstone.getPermissionsManager().isWirelessAdmin(player)
-                    || WirelessRedstone.getStorage().getWirelessChannel(channelname).getOwners().contains(player.getName());
+                    || channel.getOwners().contains(player.getName());
         }
         return true;
     }
 
+    // Channel state
+
+    /**
+     * Mark a channel as active (turned on) or inactive.
+     *
+     * @return true if the state of the channel changed
+     */
+    public boolean setChannelActive(String channelName, boolean active) {
+        if (active)
+            return activeChannels.add(channelName.toLowerCase());
+        else
+            return activeChannels.remove(channelName.toLowerCase());
+    }
+
+    /**
+     * @return true if the channel is turned on, ignoring the case of the name. Safe to call from any thread.
+     */
+    public boolean isChannelActive(String channelName) {
+        return channelName != null && activeChannels.contains(channelName.toLowerCase());
+    }
+
+    /**
+     * @return read-only view of the lower-cased names of the channels that are turned on. Safe to use from any thread.
+     */
+    public Set<String> getActiveChannels() {
+        return Collections.unmodifiableSet(activeChannels);
+    }
+
     // Utils
 
     public void stopAllClocks() {
-        ArrayList<Integer> remove = new ArrayList<Integer>();
-        for (Map.Entry<Integer, String> task : WirelessRedstone.getSignManager().clockTasks.entrySet()) {
-            Bukkit.getScheduler().cancelTask(task.getKey());
-            remove.add(task.getKey());
-            WirelessRedstone.getWRLogger().debug("Stopped clock task " + task);
-        }
-        for (Integer i : remove) {
-            WirelessRedstone.getSignManager().clockTasks.remove(i);
-        }
-        remove.clear();
+        WirelessRedstone.getClockScheduler().stopAll();
     }
 }
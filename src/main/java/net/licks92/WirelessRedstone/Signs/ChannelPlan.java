@@ -0,0 +1,154 @@
+package net.licks92.WirelessRedstone.Signs;
+
+import net.licks92.WirelessRedstone.WirelessRedstone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The receivers of a channel in the order they are updated, sorted by world and chunk so the blocks of one chunk are
+ * changed together. Everything a plain receiver needs to place its block (the packed block and chunk keys, the type
+ * and data of the sign and the data of the torch) is computed when the plan is built. A plan never changes, the
+ * channel builds a new one when its receivers change.
+ */
+public final class ChannelPlan {
+
+    private static final int SIGN_POST_TYPE_ID = 63;
+    private static final int WALL_SIGN_TYPE_ID = 68;
+
+    private static final Comparator<Target> BLOCK_ORDER = new Comparator<Target>() {
+        @Override
+        public int compare(Target first, Target second) {
+            int result = first.world.compareTo(second.world);
+            if (result == 0)
+                result = Integer.compare(first.receiver.getX() >> 4, second.receiver.getX() >> 4);
+            if (result == 0)
+                result = Integer.compare(first.receiver.getZ() >> 4, second.receiver.getZ() >> 4);
+            if (result == 0)
+                result = Integer.compare(first.receiver.getY(), second.receiver.getY());
+            return result;
+        }
+    };
+
+    private final List<Target> onTargets;
+    private final List<Target> offTargets;
+    private final int chunkCount;
+
+    public ChannelPlan(List<WirelessReceiver> receivers) {
+        Target[] sorted = new Target[receivers.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = new Target(receivers.get(i));
+        }
+        Arrays.sort(sorted, BLOCK_ORDER);
+
+        // Switches only react to turnOn, they are left out when the channel turns off
+        List<Target> off = new ArrayList<>(sorted.length);
+        int chunks = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (!(sorted[i].receiver instanceof WirelessReceiverSwitch))
+                off.add(sorted[i]);
+
+            if (i == 0 || !sorted[i - 1].sameChunk(sorted[i]))
+                chunks++;
+        }
+
+        this.onTargets = Collections.unmodifiableList(Arrays.asList(sorted));
+        this.offTargets = Collections.unmodifiableList(off);
+        this.chunkCount = chunks;
+    }
+
+    /**
+     * @return the receivers to update when the channel turns on
+     */
+    public List<Target> getOnTargets() {
+        return onTargets;
+    }
+
+    /**
+     * @return the receivers to update when the channel turns off
+     */
+    public List<Target> getOffTargets() {
+        return offTargets;
+    }
+
+    /**
+     * @return the amount of chunks the receivers are in
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * A receiver with the values it needs to place its block. Receivers are set up before they are added to a channel,
+     * so the values can be taken when the plan is built.
+     */
+    public static final class Target {
+
+        private final WirelessReceiver receiver;
+        private final String world;
+        private final long blockKey;
+        private final long chunkKey;
+        private final boolean plain;
+        private final byte torchData;
+        private final int signTypeId;
+        private final byte signData;
+
+        private Target(WirelessReceiver receiver) {
+            this.receiver = receiver;
+            this.world = String.valueOf(receiver.getWorld());
+            this.blockKey = WirelessRedstone.getUtils().getBlockKey(receiver.getX(), receiver.getY(), receiver.getZ());
+            this.chunkKey = WirelessRedstone.getUtils().getChunkKey(receiver.getX() >> 4, receiver.getZ() >> 4);
+            // Inverters, delayers, clocks and switches change what turnOn and turnOff do
+            this.plain = receiver.getClass() == WirelessReceiver.class;
+            this.torchData = receiver.computeTorchData();
+            this.signTypeId = receiver.getIsWallSign() ? WALL_SIGN_TYPE_ID : SIGN_POST_TYPE_ID;
+            this.signData = receiver.computeSignData();
+        }
+
+        public WirelessReceiver getReceiver() {
+            return receiver;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public long getBlockKey() {
+            return blockKey;
+        }
+
+        public long getChunkKey() {
+            return chunkKey;
+        }
+
+        /**
+         * @return true if this target is in the same chunk as the other one
+         */
+        public boolean sameChunk(Target other) {
+            return chunkKey == other.chunkKey && world.equals(other.world);
+        }
+
+        /**
+         * Turn the receiver on, a plain receiver places its torch with the values of the plan.
+         */
+        public void turnOn(String channelName) {
+            if (plain)
+                receiver.updateBlock(channelName, true, torchData, signTypeId, signData);
+            else
+                receiver.turnOn(channelName);
+        }
+
+        /**
+         * Turn the receiver off, a plain receiver places its sign with the values of the plan.
+         */
+        public void turnOff(String channelName) {
+            if (plain)
+                receiver.updateBlock(channelName, false, torchData, signTypeId, signData);
+            else
+                receiver.turnOff(channelName);
+        }
+    }
+}
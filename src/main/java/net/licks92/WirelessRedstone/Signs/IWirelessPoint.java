@@ -1,6 +1,7 @@
 package net.licks92.WirelessRedstone.Signs;
 
 import org.bukkit.Location;
+import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 
 public interface IWirelessPoint {
@@ -35,5 +36,15 @@ public interface IWirelessPoint {
 
     BlockFace getDirection();
 
+    /**
+     * @return a new location of this point, use {@link #getBlock()} to look up the block without creating one
+     */
     Location getLocation();
+
+    /**
+     * Look up the block of this point without creating a Location, the world is cached.
+     *
+     * @return the block, null if the world isn't loaded
+     */
+    Block getBlock();
 }
@@ -2,16 +2,17 @@ package net.licks92.WirelessRedstone.Signs;
 
 import com.avaje.ebean.validation.NotNull;
 import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.GlobalCache;
+import net.licks92.WirelessRedstone.Scheduler.ReceiverUpdateExecutor;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.block.Sign;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.SerializableAs;
 import org.bukkit.event.block.BlockRedstoneEvent;
-import org.bukkit.scheduler.BukkitTask;
 
 import javax.persistence.Id;
 import java.util.*;
@@ -19,6 +20,11 @@ import java.util.*;
 @SerializableAs("WirelessChannel")
 public class WirelessChannel implements ConfigurationSerializable {
 
+    private static final BlockFace[] NEIGHBOUR_FACES = {BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH,
+            BlockFace.WEST, BlockFace.UP, BlockFace.DOWN};
+    // Blocks within a manhattan distance of two, the same area GlobalCache watches around transmitters
+    private static final int[][] NEARBY_OFFSETS = createNearbyOffsets();
+
     @Id
     private int id;
     @NotNull
@@ -31,6 +37,14 @@ public class WirelessChannel implements ConfigurationSerializable {
     private List<WirelessReceiver> receivers = new LinkedList<WirelessReceiver>();
     private List<WirelessScreen> screens = new LinkedList<WirelessScreen>();
 
+    // Amount of powered transmitters, kept up to date by toggle(). It's counted again when the transmitters change.
+    private transient int poweredTransmitters = 0;
+    private transient boolean powerStateKnown = false;
+    // Receivers in update order, built again when the receivers change
+    private transient ChannelPlan plan = null;
+    // True once the receivers have been turned on or off by this object
+    private transient boolean stateApplied = false;
+
     public WirelessChannel(String name) {
         this.setName(name);
     }
@@ -58,14 +72,14 @@ public class WirelessChannel implements ConfigurationSerializable {
         int timeInTicks = time / 50; // It's the time in ticks, where the timevariable is supposed to be the time in ms.
         turnOn();
 
-        Bukkit.getScheduler().runTaskLater(Bukkit.getPluginManager().getPlugin("WirelessRedstone"),
-                                           new Runnable() {
-                                               @Override
-                                               public void run() {
-                                                   turnOff();
-                                               }
-
-                                           }, timeInTicks);
+        // A new pulse replaces the pending turn off of the previous one
+        WirelessRedstone.getDelayQueue().scheduleExclusive(getName(), "channel:" + getName().toLowerCase(), timeInTicks,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        turnOff();
+                    }
+                });
     }
 
     public void turnOn() {
@@ -74,12 +88,15 @@ public class WirelessChannel implements ConfigurationSerializable {
             return;
         }
         // Turning on the receivers ONLY if the channel isn't active.
-        try {
-            // Change receivers
-            for (WirelessReceiver receiver : receivers) {
-                receiver.turnOn(getName());
+        // Change receivers, big channels are spread over multiple ticks
+        WirelessRedstone.getReceiverUpdateExecutor().submit(getName(), getPlan().getOnTargets(), new ReceiverUpdateExecutor.ReceiverUpdate() {
+            @Override
+            public void update(ChannelPlan.Target target) {
+                target.turnOn(getName());
             }
+        });
 
+        try {
             // Turning on screens
             for (WirelessScreen screen : screens) {
                 screen.turnOn();
@@ -91,30 +108,47 @@ public class WirelessChannel implements ConfigurationSerializable {
             if (ConfigManager.getConfig().getDebugMode())
                 e.printStackTrace();
         }
-        if (!WirelessRedstone.getSignManager().activeChannels.contains(getName())) {
-            WirelessRedstone.getSignManager().activeChannels.add(getName());
-        }
+        WirelessRedstone.getSignManager().setChannelActive(getName(), true);
+        stateApplied = true;
     }
 
     public void turnOff() {
-        try {
-            // Change receivers
-            for (WirelessReceiver receiver : getReceivers()) {
-                receiver.turnOff(getName());
-
-                for (BlockFace blockFace : WirelessRedstone.getUtils().getEveryBlockFace(true)) {
-                    try {
-                        if (receiver.getLocation() != null) {
-                            if (receiver.getLocation().getBlock() != null)
-                                Bukkit.getServer().getPluginManager().callEvent(
-                                        new BlockRedstoneEvent(receiver.getLocation().getBlock().getRelative(blockFace),
-                                                               receiver.getLocation().getBlock().getRelative(blockFace).getBlockPower(), 0));
-                        }
-                    } catch (NullPointerException ignored) {
-                    }
+        final boolean legacyEvents = ConfigManager.getConfig().getLegacyRedstoneEvents();
+
+        // Change receivers, big channels are spread over multiple ticks
+        WirelessRedstone.getReceiverUpdateExecutor().submit(getName(), getPlan().getOffTargets(), new ReceiverUpdateExecutor.ReceiverUpdate() {
+            @Override
+            public void update(ChannelPlan.Target target) {
+                target.turnOff(getName());
+
+                // The packed key of the plan is enough to see that no transmitter is close, the block isn't needed
+                GlobalCache cache = WirelessRedstone.getGlobalCache();
+                if (!legacyEvents && cache != null && !cache.isBlockWatched(target.getWorld(), target.getBlockKey()))
+                    return;
+
+                // Don't load the chunk only to notify the neighbours, the state is applied when it's loaded
+                WirelessReceiver receiver = target.getReceiver();
+                if (WirelessRedstone.getDeferredReceiverUpdates().isDeferred(receiver))
+                    return;
+
+                Block block = receiver.getBlock();
+                if (block == null)
+                    return;
+
+                if (!legacyEvents) {
+                    notifyNearbyTransmitters(block);
+                    return;
+                }
+
+                for (BlockFace blockFace : NEIGHBOUR_FACES) {
+                    Block relative = block.getRelative(blockFace);
+                    Bukkit.getServer().getPluginManager().callEvent(
+                            new BlockRedstoneEvent(relative, relative.getBlockPower(), 0));
                 }
             }
+        });
 
+        try {
             // Change screens
             for (WirelessScreen screen : screens) {
                 screen.turnOff();
@@ -126,80 +160,167 @@ public class WirelessChannel implements ConfigurationSerializable {
             if (ConfigManager.getConfig().getDebugMode())
                 e.printStackTrace();
         }
-        if (WirelessRedstone.getSignManager().activeChannels.contains(getName())) {
-            WirelessRedstone.getSignManager().activeChannels.remove(getName());
+        WirelessRedstone.getSignManager().setChannelActive(getName(), false);
+        stateApplied = true;
+    }
+
+    /*
+     * The torch of a receiver can only power transmitters within two blocks. The blocks around the torch are updated by
+     * the server itself, only the transmitters that are close enough are toggled.
+     */
+    private static void notifyNearbyTransmitters(Block block) {
+        String world = block.getWorld().getName();
+        GlobalCache cache = WirelessRedstone.getGlobalCache();
+        if (cache == null) {
+            notifyNearbyTransmittersWithoutCache(block);
+            return;
         }
-    }
+        if (!cache.isBlockWatched(world, block.getX(), block.getY(), block.getZ()))
+            return; // No transmitter close enough
+
+        for (int[] offset : NEARBY_OFFSETS) {
+            GlobalCache.CachedPoint cachedPoint = cache.getCachedPoint(world, block.getX() + offset[0],
+                    block.getY() + offset[1], block.getZ() + offset[2]);
+            if (cachedPoint == null || !(cachedPoint.getPoint() instanceof WirelessTransmitter))
+                continue;
 
-    public void startClock(BukkitTask task) {
-        WirelessRedstone.getSignManager().clockTasks.put(task.getTaskId(),
-                                                         getName());
-        WirelessRedstone.getWRLogger().debug(
-                "Added clock task " + task.getTaskId()
-                        + " to te list for circuit " + getName());
+            Block transmitter = block.getRelative(offset[0], offset[1], offset[2]);
+            cachedPoint.getChannel().toggle(transmitter.isBlockIndirectlyPowered() || transmitter.isBlockPowered() ? 1 : 0,
+                    transmitter);
+        }
     }
 
-    public void stopClock() {
-        ArrayList<Integer> remove = new ArrayList<Integer>();
-        for (Map.Entry<Integer, String> task : WirelessRedstone.getSignManager().clockTasks
-                .entrySet()) {
-            if (!task.getValue().equalsIgnoreCase(getName())) {
+    // Only while the cache is built, the storage is asked about the signs around the block
+    private static void notifyNearbyTransmittersWithoutCache(Block block) {
+        for (int[] offset : NEARBY_OFFSETS) {
+            Block transmitter = block.getRelative(offset[0], offset[1], offset[2]);
+            if (transmitter.getType() != Material.SIGN_POST && transmitter.getType() != Material.WALL_SIGN)
                 continue;
-            }
-            Bukkit.getScheduler().cancelTask(task.getKey());
-            remove.add(task.getKey());
-            WirelessRedstone.getWRLogger().debug("Stopped clock task " + task);
+
+            Location loc = transmitter.getLocation();
+            String channelName = WirelessRedstone.getStorage().getWirelessChannelName(loc);
+            if (channelName == null || !(WirelessRedstone.getStorage().getWirelessRedstoneSign(loc) instanceof WirelessTransmitter))
+                continue;
+
+            WirelessChannel channel = WirelessRedstone.getStorage().getWirelessChannel(channelName);
+            if (channel != null)
+                channel.toggle(transmitter.isBlockIndirectlyPowered() || transmitter.isBlockPowered() ? 1 : 0, transmitter);
         }
-        for (Integer i : remove) {
-            WirelessRedstone.getSignManager().clockTasks.remove(i);
+    }
+
+    private static int[][] createNearbyOffsets() {
+        List<int[]> offsets = new ArrayList<>();
+        for (int dx = -2; dx <= 2; dx++) {
+            for (int dy = -2; dy <= 2; dy++) {
+                for (int dz = -2; dz <= 2; dz++) {
+                    int distance = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                    if (distance >= 1 && distance <= 2)
+                        offsets.add(new int[]{dx, dy, dz});
+                }
+            }
         }
-        remove.clear();
+        return offsets.toArray(new int[offsets.size()][]);
     }
 
+    public void stopClock() {
+        WirelessRedstone.getClockScheduler().stopChannel(getName());
+    }
+
+    /**
+     * A transmitter of this channel changed. The power state is updated now, the channel itself is turned on or off
+     * by the ChannelToggleCoalescer with the last state requested in this tick.
+     */
     public void toggle(Integer redstoneValue, Block block) {
-        if (redstoneValue > 0) {
-            if (WirelessRedstone.getSignManager().activeChannels
-                    .contains(getName())) {
-                return;
-            }
+        updatePowerState(block, redstoneValue > 0);
+        WirelessRedstone.getChannelToggleCoalescer().request(this, redstoneValue > 0);
+    }
+
+    /**
+     * Turn the channel on or off unless it's already in that state.
+     *
+     * @return true if the receivers have been turned on or off
+     */
+    public boolean applyToggle(boolean on) {
+        if (on) {
+            if (isLocked() || WirelessRedstone.getSignManager().isChannelActive(getName()))
+                return false;
+
             turnOn();
-        } else if (redstoneValue == 0) {
-            if (!isOn()) {
-                turnOff();
-            }
+        } else {
+            if (isOn())
+                return false;
+
+            // Until the receivers have been written once, their blocks might not match the channel state
+            if (stateApplied && !WirelessRedstone.getSignManager().isChannelActive(getName()))
+                return false;
+            turnOff();
         }
+        return true;
     }
 
+    /**
+     * Checks the blocks of all the transmitters, the tracked count is corrected on the way.
+     *
+     * @return true if at least one transmitter is powered right now
+     */
     public boolean isActive() {
-        for (WirelessTransmitter t : getTransmitters()) {
-            Location loc = new Location(Bukkit.getWorld(t.getWorld()), t.getX(), t.getY(), t.getZ());
-            Block block = loc.getBlock();
-            if (block.getState() instanceof Sign) {
-                if (block.isBlockIndirectlyPowered()
-                        || block.isBlockIndirectlyPowered()) {
-                    return true;
-                }
-            }
+        countPoweredTransmitters();
+        return poweredTransmitters > 0;
+    }
 
-            for (BlockFace blockFace : WirelessRedstone.getUtils().getEveryBlockFace(true)) {
-                if (block.getRelative(blockFace).isBlockIndirectlyPowered()
-                        || block.getRelative(blockFace)
-                        .isBlockIndirectlyPowered()) {
-                    return true;
-                }
-            }
+    /**
+     * Uses the tracked count of powered transmitters, the blocks are only checked when the count isn't known.
+     */
+    public boolean isOn() {
+        if (!ConfigManager.getConfig().useORLogic())
+            return false;
+
+        if (!powerStateKnown)
+            countPoweredTransmitters();
+        return poweredTransmitters > 0;
+    }
+
+    /**
+     * Update the powered state of the transmitter at this block. Only when the state isn't known yet all the
+     * transmitters are checked.
+     */
+    private void updatePowerState(Block block, boolean powered) {
+        GlobalCache cache = WirelessRedstone.getGlobalCache();
+        if (!powerStateKnown || block == null || cache == null) {
+            countPoweredTransmitters();
+            return;
+        }
+
+        GlobalCache.CachedPoint cachedPoint = cache.getCachedPoint(block.getWorld().getName(),
+                block.getX(), block.getY(), block.getZ());
+        if (cachedPoint == null || cachedPoint.getChannel() != this
+                || !(cachedPoint.getPoint() instanceof WirelessTransmitter)) {
+            countPoweredTransmitters();
+            return;
         }
-        return false;
+
+        WirelessTransmitter transmitter = (WirelessTransmitter) cachedPoint.getPoint();
+        if (transmitter.isPowered() == powered)
+            return;
+
+        transmitter.setPowered(powered);
+        poweredTransmitters += powered ? 1 : -1;
+
+        // The flags and the count disagree, e.g. a transmitter changed while it wasn't part of this channel object
+        if (poweredTransmitters < 0 || poweredTransmitters > getTransmitters().size())
+            countPoweredTransmitters();
     }
 
-    public boolean isOn() {
-        boolean on = false;
-        for (WirelessTransmitter transmitter : transmitters) {
-            if (transmitter.isActive()) {
-                on = true;
-            }
+    private void countPoweredTransmitters() {
+        int count = 0;
+        for (WirelessTransmitter transmitter : getTransmitters()) {
+            boolean powered = transmitter.isActive();
+            transmitter.setPowered(powered);
+            if (powered)
+                count++;
         }
-        return ConfigManager.getConfig().useORLogic() && on;
+        poweredTransmitters = count;
+        powerStateKnown = true;
     }
 
     public void addTransmitter(WirelessTransmitter transmitter) {
@@ -207,6 +328,7 @@ public class WirelessChannel implements ConfigurationSerializable {
             transmitters = new ArrayList<WirelessTransmitter>();
 
         transmitters.add(transmitter);
+        powerStateKnown = false;
     }
 
     public void addReceiver(WirelessReceiver receiver) {
@@ -214,6 +336,7 @@ public class WirelessChannel implements ConfigurationSerializable {
             receivers = new ArrayList<WirelessReceiver>();
 
         receivers.add(receiver);
+        plan = null;
     }
 
     public void addScreen(WirelessScreen screen) {
@@ -223,6 +346,52 @@ public class WirelessChannel implements ConfigurationSerializable {
         screens.add(screen);
     }
 
+    /**
+     * Add a receiver, transmitter or screen to the lists of this channel.
+     */
+    public void addPoint(IWirelessPoint point) {
+        if (point instanceof WirelessReceiver)
+            addReceiver((WirelessReceiver) point);
+        else if (point instanceof WirelessTransmitter)
+            addTransmitter((WirelessTransmitter) point);
+        else if (point instanceof WirelessScreen)
+            addScreen((WirelessScreen) point);
+    }
+
+    /**
+     * Remove this receiver, transmitter or screen from the lists of this channel.
+     */
+    public void removePoint(IWirelessPoint point) {
+        if (point instanceof WirelessReceiver) {
+            if (receivers.remove(point))
+                plan = null;
+        } else if (point instanceof WirelessTransmitter) {
+            if (transmitters.remove(point))
+                powerStateKnown = false;
+        } else if (point instanceof WirelessScreen) {
+            screens.remove(point);
+        }
+    }
+
+    /**
+     * @return a copy of this channel with its own owner and point lists, the points themselves are shared. The cache
+     * changes a copy of a channel, so the channels it has handed out never change.
+     */
+    public WirelessChannel copy() {
+        WirelessChannel copy = new WirelessChannel(name);
+        copy.id = id;
+        copy.locked = locked;
+        copy.owners = owners != null ? new LinkedList<String>(owners) : new LinkedList<String>();
+        copy.transmitters = new ArrayList<>(getTransmitters());
+        copy.receivers = new ArrayList<>(getReceivers());
+        copy.screens = new ArrayList<>(getScreens());
+
+        // The powered flags live on the shared transmitters, the copy counts them again when it needs them
+        copy.plan = plan;
+        copy.stateApplied = stateApplied;
+        return copy;
+    }
+
     public void removeReceiverAt(Location loc) {
         for (WirelessReceiver receiver : receivers) {
             if (receiver.getX() == loc.getBlockX()
@@ -233,6 +402,7 @@ public class WirelessChannel implements ConfigurationSerializable {
                     continue;
                 }
                 receivers.remove(receiver);
+                plan = null;
                 return;
             }
         }
@@ -248,6 +418,7 @@ public class WirelessChannel implements ConfigurationSerializable {
                     continue;
                 }
                 transmitters.remove(transmitter);
+                powerStateKnown = false;
                 return;
             }
         }
@@ -277,6 +448,7 @@ public class WirelessChannel implements ConfigurationSerializable {
                     continue;
                 }
                 receivers.remove(receiver);
+                plan = null;
                 return;
             }
         }
@@ -291,6 +463,7 @@ public class WirelessChannel implements ConfigurationSerializable {
                     continue;
                 }
                 transmitters.remove(transmitter);
+                powerStateKnown = false;
                 return;
             }
         }
@@ -343,6 +516,7 @@ public class WirelessChannel implements ConfigurationSerializable {
             this.transmitters = transmitters;
         else
             this.transmitters = new LinkedList<WirelessTransmitter>();
+        powerStateKnown = false;
     }
 
     public void setReceivers(List<WirelessReceiver> receivers) {
@@ -350,6 +524,21 @@ public class WirelessChannel implements ConfigurationSerializable {
             this.receivers = receivers;
         else
             this.receivers = new LinkedList<WirelessReceiver>();
+        plan = null;
+    }
+
+    /**
+     * @return the receivers of this channel in update order, sorted by world and chunk
+     */
+    public ChannelPlan getPlan() {
+        ChannelPlan current = plan;
+        if (current == null) {
+            current = new ChannelPlan(getReceivers());
+            plan = current;
+            WirelessRedstone.getWRLogger().debug("Channel " + name + " has " + current.getOnTargets().size()
+                    + " receivers in " + current.getChunkCount() + " chunks.");
+        }
+        return current;
     }
 
     public void setScreens(List<WirelessScreen> screens) {
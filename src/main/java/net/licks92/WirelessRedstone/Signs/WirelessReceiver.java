@@ -1,9 +1,10 @@
 package net.licks92.WirelessRedstone.Signs;
 
+import net.licks92.WirelessRedstone.Libs.WorldHandle;
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Sign;
@@ -16,11 +17,14 @@ import java.util.Map;
 @SerializableAs("WirelessReceiver")
 public class WirelessReceiver implements ConfigurationSerializable, IWirelessPoint {
 
+    private static final byte STANDING_TORCH_DATA = 5;
+
     private String owner;
     private int x;
     private int y;
     private int z;
     private String world;
+    private transient WorldHandle worldHandle = null;
     private BlockFace direction = BlockFace.SELF;
     private boolean isWallSign = false;
 
@@ -96,6 +100,7 @@ public class WirelessReceiver implements ConfigurationSerializable, IWirelessPoi
     @Override
     public void setWorld(String world) {
         this.world = world;
+        this.worldHandle = null;
     }
 
     @Override
@@ -133,7 +138,33 @@ public class WirelessReceiver implements ConfigurationSerializable, IWirelessPoi
 
     @Override
     public Location getLocation() {
-        return new Location(Bukkit.getWorld(world), x, y, z);
+        return new Location(getWorldHandle().get(), x, y, z);
+    }
+
+    @Override
+    public Block getBlock() {
+        World bukkitWorld = getWorldHandle().get();
+        return bukkitWorld == null ? null : bukkitWorld.getBlockAt(x, y, z);
+    }
+
+    /**
+     * @return the world of this receiver, null if it isn't loaded
+     */
+    public World getBukkitWorld() {
+        return getWorldHandle().get();
+    }
+
+    private WorldHandle getWorldHandle() {
+        if (worldHandle == null)
+            worldHandle = new WorldHandle(world);
+        return worldHandle;
+    }
+
+    /**
+     * @return key of this receiver for the DelayQueue, delayed actions of the same receiver replace each other
+     */
+    protected String getDelayTarget() {
+        return world + ":" + x + ":" + y + ":" + z;
     }
 
     @Override
@@ -160,48 +191,82 @@ public class WirelessReceiver implements ConfigurationSerializable, IWirelessPoi
     }
 
     public void turnOn(String channelName) {
-        if (getLocation().getWorld() == null) // If the world is not loaded or doesn't exist
+        updateBlock(channelName, true);
+    }
+
+    public void turnOff(String channelName) {
+        updateBlock(channelName, false);
+    }
+
+    /**
+     * Place the torch (on) or the sign (off) of this receiver. When the chunk isn't loaded and DeferUnloadedReceivers
+     * is enabled, the state is applied when the chunk is loaded again.
+     */
+    public void updateBlock(String channelName, boolean on) {
+        updateBlock(channelName, on, computeTorchData(), getIsWallSign() ? 68 : 63, computeSignData());
+    }
+
+    // The ChannelPlan passes the values it computed when it was built
+    void updateBlock(String channelName, boolean on, byte torchData, int signTypeId, byte signData) {
+        if (getBukkitWorld() == null) // If the world is not loaded or doesn't exist
+            return;
+
+        // Checked before the block is looked up, looking up a block loads its chunk
+        if (WirelessRedstone.getDeferredReceiverUpdates().defer(this, on))
             return;
 
-        Block block = getLocation().getBlock();
+        Block block = getBlock();
+
+        if (on)
+            placeTorch(block, torchData);
+        else
+            placeSign(block, channelName, signTypeId, signData);
+    }
+
+    void placeTorch(Block block, byte torchData) {
+        // Receivers that already show their torch are left alone, this skips the physics and lighting updates
+        if (WirelessRedstone.getUtils().hasTypeIdAndData(block, 76, torchData))
+            return;
 
         if (!getIsWallSign()) {
             if (!WirelessRedstone.getUtils().isValidLocation(block))
                 WirelessRedstone.getUtils().signWarning(block, 1);
             else
-                block.setTypeIdAndData(76, (byte) 0, true);
+                block.setTypeIdAndData(76, torchData, true);
 
         } else {
             if (block.getType() == Material.WALL_SIGN) {
                 if (!WirelessRedstone.getUtils().isValidWallLocation(block))
                     WirelessRedstone.getUtils().signWarning(block, 1);
                 else
-                    block.setTypeIdAndData(76, (byte) WirelessRedstone.getUtils().torchFaceToInt(getDirection()), true);
+                    block.setTypeIdAndData(76, torchData, true);
             }
         }
     }
 
-    public void turnOff(String channelName) {
-        if (getLocation().getWorld() == null)
-            return;
-
-        byte directionByte;
-        Block block = getLocation().getBlock();
-        int blockID = getIsWallSign() ? 68 : 63;
+    private void placeSign(Block block, String channelName, int signTypeId, byte signData) {
+        if (!WirelessRedstone.getUtils().hasTypeIdAndData(block, signTypeId, signData))
+            block.setTypeIdAndData(signTypeId, signData, true);
 
-        if (getIsWallSign())
-            directionByte = (byte) WirelessRedstone.getUtils().wallSignFaceToInt(getDirection());
-        else
-            directionByte = (byte) WirelessRedstone.getUtils().signFaceToInt(getDirection());
-
-
-        block.setTypeIdAndData(blockID, directionByte, true);
-
-        if (block.getState() instanceof Sign) {
+        if (block.getType() == Material.WALL_SIGN || block.getType() == Material.SIGN_POST) {
             changeSignContent(block, channelName);
         }
     }
 
+    // The data of the torch and the sign only depend on the direction
+    byte computeTorchData() {
+        // The server stores a standing torch with data 5, writing the same value lets placeTorch recognise it
+        if (!isWallSign)
+            return STANDING_TORCH_DATA;
+        return (byte) WirelessRedstone.getUtils().torchFaceToInt(direction);
+    }
+
+    byte computeSignData() {
+        if (isWallSign)
+            return (byte) WirelessRedstone.getUtils().wallSignFaceToInt(direction);
+        return (byte) WirelessRedstone.getUtils().signFaceToInt(direction);
+    }
+
     public void changeSignContent(Block block, String channelName) {
         Sign signtemp = (Sign) block.getState();
         signtemp.setLine(0, WirelessRedstone.getStringManager().tagsReceiver.get(0));
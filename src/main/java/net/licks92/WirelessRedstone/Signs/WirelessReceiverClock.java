@@ -1,11 +1,9 @@
 package net.licks92.WirelessRedstone.Signs;
 
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.block.Sign;
 import org.bukkit.configuration.serialization.SerializableAs;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Map;
 
@@ -33,38 +31,23 @@ public class WirelessReceiverClock extends WirelessReceiver {
 
     @Override
     public void turnOn(final String channelName) {
-        WirelessRedstone.getWRLogger().debug("Clock started on channel: " + channelName);
-        BukkitTask task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
-            boolean b = false;
-            @Override
-            public void run() {
-//                WirelessRedstone.getWRLogger().debug("Clock " + channelName + ", state is "
-//                        + b);
-                if (b) {
-                    superTurnOff(channelName);
-                } else {
-                    superTurnOn(channelName);
-                }
-                b = !b;
-            }
-        }, 0L, this.delay / 50);
-        WirelessRedstone.getStorage().getWirelessChannel(channelName).startClock(task);
+        WirelessRedstone.getClockScheduler().start(this, channelName);
     }
 
     @Override
     public void turnOff(final String channelName) {
-        WirelessRedstone.getStorage().getWirelessChannel(channelName).stopClock();
-        Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
+        WirelessRedstone.getClockScheduler().stop(this);
+        WirelessRedstone.getDelayQueue().schedule(channelName, getDelayTarget(), 2, new Runnable() {
             @Override
             public void run() {
                 superTurnOff(channelName);
             }
-        }, 2L);
+        });
     }
 
     @Override
     public void changeSignContent(Block block, String channelName){
-        Sign sign = (Sign) getLocation().getBlock().getState();
+        Sign sign = (Sign) block.getState();
         sign.setLine(0, WirelessRedstone.getStringManager().tagsReceiver.get(0));
         sign.setLine(1, channelName);
         sign.setLine(2, WirelessRedstone.getStringManager().tagsReceiverClockType.get(0));
@@ -72,6 +55,16 @@ public class WirelessReceiverClock extends WirelessReceiver {
         sign.update();
     }
 
+    /**
+     * Called by the ClockScheduler every time the clock toggles.
+     */
+    public void clockTick(String channelName, boolean on) {
+        if (on)
+            superTurnOn(channelName);
+        else
+            superTurnOff(channelName);
+    }
+
     private void superTurnOn(String channelName) {
         super.turnOn(channelName);
     }
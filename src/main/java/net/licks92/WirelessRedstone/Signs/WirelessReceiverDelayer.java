@@ -1,7 +1,6 @@
 package net.licks92.WirelessRedstone.Signs;
 
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.block.Sign;
 import org.bukkit.configuration.serialization.SerializableAs;
@@ -33,12 +32,12 @@ public class WirelessReceiverDelayer extends WirelessReceiver {
     @Override
     public void turnOn(final String channelName) {
         int delayInTicks = delay / 50;
-        Bukkit.getScheduler().runTaskLater(Bukkit.getPluginManager().getPlugin("WirelessRedstone"), new Runnable() {
+        WirelessRedstone.getDelayQueue().schedule(channelName, getDelayTarget(), delayInTicks, new Runnable() {
             @Override
             public void run() {
                 superTurnOn(channelName);
             }
-        }, delayInTicks);
+        });
     }
 
     private void superTurnOn(String channelName) {
@@ -48,17 +47,17 @@ public class WirelessReceiverDelayer extends WirelessReceiver {
     @Override
     public void turnOff(final String channelName) {
         int delayInTicks = delay / 50;
-        Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
+        WirelessRedstone.getDelayQueue().schedule(channelName, getDelayTarget(), delayInTicks, new Runnable() {
             @Override
             public void run() {
                 superTurnOff(channelName);
             }
-        }, delayInTicks);
+        });
     }
 
     @Override
     public void changeSignContent(Block block, String channelName){
-        Sign sign = (Sign) getLocation().getBlock().getState();
+        Sign sign = (Sign) block.getState();
         sign.setLine(0, WirelessRedstone.getStringManager().tagsReceiver.get(0));
         sign.setLine(1, channelName);
         sign.setLine(2, WirelessRedstone.getStringManager().tagsReceiverDelayerType.get(0));
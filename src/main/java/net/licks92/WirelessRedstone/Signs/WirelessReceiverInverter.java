@@ -30,7 +30,7 @@ public class WirelessReceiverInverter extends WirelessReceiver {
 
     @Override
     public void changeSignContent(Block block, String channelName){
-        Sign sign = (Sign) getLocation().getBlock().getState();
+        Sign sign = (Sign) block.getState();
         sign.setLine(0, WirelessRedstone.getStringManager().tagsReceiver.get(0));
         sign.setLine(1, channelName);
         sign.setLine(2, WirelessRedstone.getStringManager().tagsReceiverInverterType.get(0));
@@ -1,7 +1,6 @@
 package net.licks92.WirelessRedstone.Signs;
 
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.block.Sign;
 import org.bukkit.configuration.serialization.SerializableAs;
@@ -11,48 +10,35 @@ import java.util.Map;
 @SerializableAs("WirelessReceiverSwitch")
 public class WirelessReceiverSwitch extends WirelessReceiver {
 
+    // State read from the storage or the sign, used until the switch is toggled for the first time
+    private boolean initialState = false;
+
     public WirelessReceiverSwitch(Map<String, Object> map) {
         super(map);
-        setFirstState((Boolean) map.get("state"));
+        Object state = map.get("state");
+        if (state instanceof Boolean)
+            initialState = (Boolean) state;
     }
 
-    public WirelessReceiverSwitch(final boolean state) {
+    public WirelessReceiverSwitch(boolean state) {
         super();
-        try {
-            Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
-                @Override
-                public void run() {
-                    setFirstState(state); //The plugin must be fully loaded to call this method, otherwise you get a nullpointers
-                }
-            }, 1L);
-        } catch (Exception ignored) {}
+        this.initialState = state;
     }
 
     public WirelessReceiverSwitch() {
         super();
-        setFirstState(false);
     }
 
     @Override
     public Map<String, Object> serialize() {
         Map<String, Object> map = super.serialize();
-        boolean state;
-        if (WirelessRedstone.getSignManager().switchState.get(getLocation()) != null)
-            state = WirelessRedstone.getSignManager().switchState.get(getLocation());
-        else
-            state = false;
-        map.put("state", state);
+        map.put("state", getState());
         return map;
     }
 
     @Override
     public void turnOn(String channelName) {
-        boolean state;
-        if (WirelessRedstone.getSignManager().switchState.get(getLocation()) != null)
-            state = WirelessRedstone.getSignManager().switchState.get(getLocation());
-        else
-            state = false;
-
+        boolean state = getState();
         if (state) {
             superTurnOff(channelName);
         } else {
@@ -72,7 +58,7 @@ public class WirelessReceiverSwitch extends WirelessReceiver {
 
     @Override
     public void changeSignContent(Block block, String channelName) {
-        Sign sign = (Sign) getLocation().getBlock().getState();
+        Sign sign = (Sign) block.getState();
         sign.setLine(0, WirelessRedstone.getStringManager().tagsReceiver.get(0));
         sign.setLine(1, channelName);
         sign.setLine(2, WirelessRedstone.getStringManager().tagsReceiverSwitchType.get(0));
@@ -84,16 +70,12 @@ public class WirelessReceiverSwitch extends WirelessReceiver {
     }
 
     public void setState(boolean state) {
-        WirelessRedstone.getSignManager().switchState.put(getLocation(), state);
+        WirelessRedstone.getSwitchStateStore().set(this, state);
     }
 
-
     public boolean getState() {
-        return WirelessRedstone.getSignManager().switchState.get(getLocation());
-    }
-
-    public void setFirstState(boolean state) {
-        if (WirelessRedstone.getSignManager().switchState.get(getLocation()) == null)
-            WirelessRedstone.getSignManager().switchState.put(getLocation(), state);
+        Boolean state = WirelessRedstone.getSwitchStateStore() == null ? null
+                : WirelessRedstone.getSwitchStateStore().get(this);
+        return state == null ? initialState : state;
     }
 }
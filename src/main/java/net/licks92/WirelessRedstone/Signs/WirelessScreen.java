@@ -1,9 +1,11 @@
 package net.licks92.WirelessRedstone.Signs;
 
+import net.licks92.WirelessRedstone.Libs.WorldHandle;
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Sign;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
@@ -15,13 +17,20 @@ import java.util.Map;
 @SerializableAs("WirelessScreen")
 public class WirelessScreen implements ConfigurationSerializable, IWirelessPoint {
 
+    private static final String ACTIVE_LINE = ChatColor.GREEN + "ACTIVE";
+    private static final String INACTIVE_LINE = ChatColor.RED + "INACTIVE";
+
     private String owner;
     private int x;
     private int y;
     private int z;
     private String world;
+    private transient WorldHandle worldHandle = null;
     private BlockFace direction = BlockFace.SELF;
     private boolean isWallSign = false;
+    // Last state written on the sign, null if it's unknown
+    private transient Boolean renderedState = null;
+    private transient long lastRender = 0;
 
     public WirelessScreen() {
     }
@@ -92,6 +101,7 @@ public class WirelessScreen implements ConfigurationSerializable, IWirelessPoint
     @Override
     public void setWorld(String world) {
         this.world = world;
+        this.worldHandle = null;
     }
 
     @Override
@@ -129,7 +139,19 @@ public class WirelessScreen implements ConfigurationSerializable, IWirelessPoint
 
     @Override
     public Location getLocation() {
-        return new Location(Bukkit.getWorld(world), x, y, z);
+        return new Location(getWorldHandle().get(), x, y, z);
+    }
+
+    @Override
+    public Block getBlock() {
+        World bukkitWorld = getWorldHandle().get();
+        return bukkitWorld == null ? null : bukkitWorld.getBlockAt(x, y, z);
+    }
+
+    private WorldHandle getWorldHandle() {
+        if (worldHandle == null)
+            worldHandle = new WorldHandle(world);
+        return worldHandle;
     }
 
     @Override
@@ -156,17 +178,41 @@ public class WirelessScreen implements ConfigurationSerializable, IWirelessPoint
     }
 
     public void turnOn() {
-        String str = ChatColor.GREEN + "ACTIVE";
-        Sign sign = (Sign) getLocation().getBlock().getState();
-        sign.setLine(2, str);
-        sign.update();
+        WirelessRedstone.getScreenRefresher().request(this, true);
     }
 
     public void turnOff() {
-        String str = ChatColor.RED + "INACTIVE";
-        Sign sign = (Sign) getLocation().getBlock().getState();
+        WirelessRedstone.getScreenRefresher().request(this, false);
+    }
+
+    /**
+     * Write a state on the sign, called by the ScreenRefresher. Nothing is written if the sign already shows it.
+     *
+     * @param minInterval minimal time in ms between two writes of this screen
+     * @return false if the screen was written less than minInterval ago, nothing has been written
+     */
+    public boolean render(boolean active, long now, long minInterval) {
+        if (renderedState != null && renderedState == active)
+            return true;
+
+        if (minInterval > 0 && now - lastRender < minInterval)
+            return false;
+
+        Block block = getBlock();
+        if (block == null || !(block.getState() instanceof Sign))
+            return true;
+
+        renderedState = active;
+        lastRender = now;
+
+        String str = active ? ACTIVE_LINE : INACTIVE_LINE;
+        Sign sign = (Sign) block.getState();
+        if (str.equals(sign.getLine(2)))
+            return true;
+
         sign.setLine(2, str);
         sign.update();
+        return true;
     }
 
 }
@@ -1,8 +1,9 @@
 package net.licks92.WirelessRedstone.Signs;
 
+import net.licks92.WirelessRedstone.Libs.WorldHandle;
 import net.licks92.WirelessRedstone.WirelessRedstone;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
@@ -19,8 +20,10 @@ public class WirelessTransmitter implements ConfigurationSerializable, IWireless
     private int y;
     private int z;
     private String world;
+    private transient WorldHandle worldHandle = null;
     private BlockFace direction = BlockFace.SELF;
     private boolean isWallSign = false;
+    private transient boolean powered = false;
 
     public WirelessTransmitter() {
     }
@@ -90,6 +93,7 @@ public class WirelessTransmitter implements ConfigurationSerializable, IWireless
     @Override
     public void setWorld(String world) {
         this.world = world;
+        this.worldHandle = null;
     }
 
     @Override
@@ -127,7 +131,19 @@ public class WirelessTransmitter implements ConfigurationSerializable, IWireless
 
     @Override
     public Location getLocation() {
-        return new Location(Bukkit.getWorld(world), x, y, z);
+        return new Location(getWorldHandle().get(), x, y, z);
+    }
+
+    @Override
+    public Block getBlock() {
+        World bukkitWorld = getWorldHandle().get();
+        return bukkitWorld == null ? null : bukkitWorld.getBlockAt(x, y, z);
+    }
+
+    private WorldHandle getWorldHandle() {
+        if (worldHandle == null)
+            worldHandle = new WorldHandle(world);
+        return worldHandle;
     }
 
     @Override
@@ -153,12 +169,19 @@ public class WirelessTransmitter implements ConfigurationSerializable, IWireless
         this.setZ((Integer) map.get("z"));
     }
 
-    public boolean isActive() {
-        Location loc = new Location(Bukkit.getWorld(getWorld()), getX(), getY(), getZ());
-        if (loc == null)
-            return false;
+    /**
+     * @return the powered state the channel last saw for this transmitter, see {@link #isActive()} for the live state
+     */
+    public boolean isPowered() {
+        return powered;
+    }
 
-        Block block = loc.getBlock();
+    void setPowered(boolean powered) {
+        this.powered = powered;
+    }
+
+    public boolean isActive() {
+        Block block = getBlock();
         if (block == null)
             return false;
 
@@ -2,6 +2,7 @@ package net.licks92.WirelessRedstone.Storage;
 
 import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
 import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverSwitch;
 import org.bukkit.Location;
 
 import java.util.Collection;
@@ -39,6 +40,7 @@ public interface IWirelessStorageConfiguration {
 
     void updateChannel(String channelName, WirelessChannel channel);
     void updateReceivers();
+    void updateSwitchStates(Collection<WirelessReceiverSwitch> receivers);
     void checkChannel(String channelName);
     void removeWirelessChannel(String channelName);
 
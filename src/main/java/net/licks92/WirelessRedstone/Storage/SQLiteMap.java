@@ -2,6 +2,9 @@ package net.licks92.WirelessRedstone.Storage;
 
 public class SQLiteMap {
 
+    public static String sqlTableChannels = "channels";
+    public static String sqlTableSigns = "wireless_points";
+
     public static String sqlIsWallSign = "isWallSign";
     public static String sqlDirection = "direction";
     public static String sqlChannelId = "id";
@@ -14,5 +17,6 @@ public class SQLiteMap {
     public static String sqlSignY = "y";
     public static String sqlSignZ = "z";
     public static String sqlSignType = "signType";
+    public static String sqlSignChannelId = "channel_id";
     
 }
@@ -5,6 +5,7 @@ import net.licks92.WirelessRedstone.Libs.CreateBuilder;
 import net.licks92.WirelessRedstone.Libs.DeleteBuilder;
 import net.licks92.WirelessRedstone.Libs.InsertBuilder;
 import net.licks92.WirelessRedstone.Libs.SQLite;
+import net.licks92.WirelessRedstone.Libs.SelectBuilder;
 import net.licks92.WirelessRedstone.Libs.UpdateBuilder;
 import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
 import net.licks92.WirelessRedstone.Signs.WirelessChannel;
@@ -25,6 +26,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -33,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
@@ -41,6 +44,8 @@ import java.util.zip.ZipOutputStream;
 
 public class SQLiteStorage implements IWirelessStorageConfiguration {
 
+    private static final int SCHEMA_VERSION = 2;
+
     private Boolean useGlobalCache = true;
 
     private File channelFolder;
@@ -59,6 +64,7 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
     private String sqlSignY = SQLiteMap.sqlSignY;
     private String sqlSignZ = SQLiteMap.sqlSignZ;
     private String sqlSignType = SQLiteMap.sqlSignType;
+    private String sqlSignChannelId = SQLiteMap.sqlSignChannelId;
 
     public SQLiteStorage(String channelFolder) {
         this.channelFolder = new File(WirelessRedstone.getInstance().getDataFolder(), channelFolder);
@@ -78,13 +84,25 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
         }
 
         try {
-            this.sqLite = new SQLite(WirelessRedstone.getInstance(), channelFolder + File.separator + "WirelessRedstoneDatabase.db", useGlobalCache);
+            // The cache is updated with deltas, it doesn't have to be reloaded after the writes are flushed
+            this.sqLite = new SQLite(WirelessRedstone.getInstance(), channelFolder + File.separator + "WirelessRedstoneDatabase.db", false);
         } catch (SQLException | ClassNotFoundException e) {
             WirelessRedstone.getWRLogger().severe("There's a SQLite problem please send the full stacktrace to the developer on Github");
             e.printStackTrace();
         }
     }
 
+    /**
+     * Use a database that has already been opened.
+     *
+     * @param channelFolder folder for the backups and the files of other storages
+     */
+    SQLiteStorage(File channelFolder, SQLite sqLite) {
+        this.channelFolder = channelFolder;
+        this.channelFolderStr = channelFolder.getPath();
+        this.sqLite = sqLite;
+    }
+
     @Override
     public boolean initStorage() {
         return sqLite != null && initiate(true);
@@ -106,71 +124,36 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
 
     @Override
     public boolean createWirelessChannel(WirelessChannel channel) {
-        if (!sqlTableExists(channel.getName())) {
+        if (!channelExists(channel.getName())) {
             // Get the type of the sign that has been created
             if (channel.getReceivers().isEmpty() && channel.getTransmitters().isEmpty() && channel.getScreens().isEmpty()) {
                 WirelessRedstone.getWRLogger().severe("Channel created with no IWirelessPoint in, stopping the creation of the channel.");
                 return false;
             }
 
-            String sql = new CreateBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channel.getName()))
-                    .addColumn(sqlChannelId, "int").addColumn(sqlChannelName, "char(64)")
-                    .addColumn(sqlChannelLocked, "int(1)").addColumn(sqlChannelOwners, "char(255)")
-                    .addColumn(sqlDirection, "char(255)").addColumn(sqlIsWallSign, "int(1)")
-                    .addColumn(sqlSignType, "char(255)").addColumn(sqlSignX, "int")
-                    .addColumn(sqlSignY, "int").addColumn(sqlSignZ, "int")
-                    .addColumn(sqlSignWorld, "char(255)").addColumn(sqlSignOwner, "char(255)")
-                    .setIfNotExist(false).toString();
-
             try {
-                // Create the table
-                WirelessRedstone.getWRLogger().debug("Executing sql: " + sql);
-                sqLite.lockTimer();
-                PreparedStatement create = sqLite.getConnection().prepareStatement(sql);
-
-                //We can't async this statement because it is to important and it can cause nullpointer exceptions while inserting data
-//                sqLite.execute(create);
-                create.execute();
-                create.close();
-
-                sql = new InsertBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channel.getName()))
-                        .addColumnWithValue(sqlChannelId, channel.getId())
-                        .addColumnWithValue(sqlChannelName, channel.getName())
-                        .addColumnWithValue(sqlChannelLocked, 0)
-                        .addColumnWithValue(sqlChannelOwners, channel.getOwners().get(0))
-                        .toString();
-                WirelessRedstone.getWRLogger().debug("Executing sql: " + sql);
-                PreparedStatement insert = sqLite.getConnection().prepareStatement(sql);
-
-//                sqLite.execute(insert);
-                int changes = insert.executeUpdate();
-                insert.close();
-                sqLite.unlockTime();
-
-                if (changes > 0){
-                    WirelessRedstone.getWRLogger().debug("Excuting insert sql was successful.");
-                } else {
-                    WirelessRedstone.getWRLogger().debug("Excuting insert sql failed! No changes were made.");
+                // The points are queued and need the id of the channel, the background flush can't run in between
+                synchronized (sqLite) {
+                    sqLite.flush();
+                    insertChannel(channel);
                 }
 
                 // Create the wireless points
                 ArrayList<IWirelessPoint> points = new ArrayList<IWirelessPoint>();
-                for (IWirelessPoint ipoint : channel.getReceivers()) {
-                    points.add(ipoint);
-                }
-                for (IWirelessPoint ipoint : channel.getTransmitters()) {
-                    points.add(ipoint);
-                }
-                for (IWirelessPoint ipoint : channel.getScreens()) {
-                    points.add(ipoint);
-                }
+                points.addAll(channel.getReceivers());
+                points.addAll(channel.getTransmitters());
+                points.addAll(channel.getScreens());
                 for (IWirelessPoint ipoint : points) {
-                    createWirelessPoint(channel.getName(), ipoint);
+                    insertWirelessPoint(channel.getName(), ipoint);
                 }
                 WirelessRedstone.getWRLogger().debug("Created channel " + channel.getName() + " with " + points.size() + " wirelesspoints");
+
+                if (WirelessRedstone.getGlobalCache() != null)
+                    WirelessRedstone.getGlobalCache().addChannel(channel);
                 return true;
             } catch (SQLException ex) {
                 ex.printStackTrace();
+                return false;
             }
         }
         WirelessRedstone.getWRLogger().debug("Tried to create a channel that already exists in the database");
@@ -179,56 +162,50 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
 
     @Override
     public boolean createWirelessPoint(String channelName, IWirelessPoint point) {
-        if (!sqlTableExists(channelName)) {
-            WirelessRedstone.getWRLogger().severe("Could not create this wireless point in the channel " + channelName + ", it does not exist!");
-        }
+        if (!insertWirelessPoint(channelName, point))
+            return false;
 
-        Integer isWallSign;
-        String signType;
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().addPoint(channelName, point);
+        return true;
+    }
 
-        if (point instanceof WirelessTransmitter) {
-            signType = "transmitter";
-        } else if (point instanceof WirelessScreen) {
-            signType = "screen";
-        } else if (point instanceof WirelessReceiver) {
-            if (point instanceof WirelessReceiverInverter) signType = "receiver_inverter";
-            else if (point instanceof WirelessReceiverDelayer)
-                signType = "receiver_delayer_" + ((WirelessReceiverDelayer) (point)).getDelay();
-            else if (point instanceof WirelessReceiverSwitch) {
-                boolean state;
-                if (WirelessRedstone.getSignManager().switchState.get(((WirelessReceiverSwitch) (point)).getLocation()) != null)
-                    state = WirelessRedstone.getSignManager().switchState.get(((WirelessReceiverSwitch) (point)).getLocation());
-                else state = false;
-                signType = "receiver_switch_" + state;
-            } else if (point instanceof WirelessReceiverClock)
-                signType = "receiver_clock_" + ((WirelessReceiverClock) (point)).getDelay();
-            else signType = "receiver";
-        } else {
+    private boolean insertWirelessPoint(String channelName, IWirelessPoint point) {
+        String signType = getSignType(point);
+        if (signType == null)
             return false;
-        }
 
-        if (point.getIsWallSign())
-            isWallSign = 1;
-        else
-            isWallSign = 0;
-
-        String sql = new InsertBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName))
-                .addColumnWithValue(sqlSignType, signType)
-                .addColumnWithValue(sqlSignX, point.getX())
-                .addColumnWithValue(sqlSignY, point.getY())
-                .addColumnWithValue(sqlSignZ, point.getZ())
-                .addColumnWithValue(sqlSignWorld, point.getWorld())
-                .addColumnWithValue(sqlDirection, point.getDirection().toString().toUpperCase())
-                .addColumnWithValue(sqlSignOwner, point.getOwner())
-                .addColumnWithValue(sqlIsWallSign, isWallSign)
+        String sql = new InsertBuilder(SQLiteMap.sqlTableSigns)
+                .addColumn(sqlSignChannelId).addValue("(SELECT " + sqlChannelId + " FROM " + SQLiteMap.sqlTableChannels
+                        + " WHERE " + sqlChannelName + " = ?)")
+                .addColumn(sqlSignType).addValue("?")
+                .addColumn(sqlSignX).addValue("?")
+                .addColumn(sqlSignY).addValue("?")
+                .addColumn(sqlSignZ).addValue("?")
+                .addColumn(sqlSignWorld).addValue("?")
+                .addColumn(sqlDirection).addValue("?")
+                .addColumn(sqlIsWallSign).addValue("?")
+                .addColumn(sqlSignOwner).addValue("?")
                 .toString();
         WirelessRedstone.getWRLogger().debug("Adding sql: " + sql);
 
         try {
-            PreparedStatement insert = sqLite.getConnection().prepareStatement(sql);
+            PreparedStatement insert = sqLite.prepareStatement(sql);
+            insert.setString(1, channelName);
+            insert.setString(2, signType);
+            insert.setInt(3, point.getX());
+            insert.setInt(4, point.getY());
+            insert.setInt(5, point.getZ());
+            insert.setString(6, point.getWorld());
+            insert.setString(7, point.getDirection().toString().toUpperCase());
+            insert.setInt(8, point.getIsWallSign() ? 1 : 0);
+            insert.setString(9, point.getOwner());
             sqLite.execute(insert);
         } catch (SQLException ex) {
-            ex.printStackTrace();
+            WirelessRedstone.getWRLogger().severe("Could not create this wireless point in the channel " + channelName + ", it does not exist!");
+            if (ConfigManager.getConfig().getDebugMode())
+                ex.printStackTrace();
+            return false;
         }
 
         return true;
@@ -236,54 +213,39 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
 
     @Override
     public boolean removeIWirelessPoint(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel == null) return false;
+        if (!channelName.equalsIgnoreCase(getWirelessChannelName(loc)))
+            return false;
 
-        for (WirelessReceiver receiver : channel.getReceivers()) {
-            if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc))
-                return removeWirelessReceiver(channelName, loc);
-        }
-        for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-            if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc))
-                return removeWirelessTransmitter(channelName, loc);
-        }
-        for (WirelessScreen screen : channel.getScreens()) {
-            if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc))
-                return removeWirelessScreen(channelName, loc);
-        }
+        IWirelessPoint point = getWirelessRedstoneSign(loc);
+        if (point instanceof WirelessReceiver)
+            return removeWirelessReceiver(channelName, loc);
+        else if (point instanceof WirelessTransmitter)
+            return removeWirelessTransmitter(channelName, loc);
+        else if (point instanceof WirelessScreen)
+            return removeWirelessScreen(channelName, loc);
         return false;
     }
 
     @Override
     public boolean removeWirelessReceiver(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeReceiverAt(loc);
-            return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
-        } else return false;
+        return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean removeWirelessTransmitter(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeTransmitterAt(loc);
-            return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
-        } else return false;
+        return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean removeWirelessScreen(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeScreenAt(loc);
-            return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
-        } else return false;
+        return removeWirelessPoint(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean renameWirelessChannel(String channelName, String newChannelName) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
+        WirelessChannel channel = getWirelessChannel(channelName);
+        if (channel == null)
+            return false;
 
         List<IWirelessPoint> signs = new ArrayList<IWirelessPoint>();
 
@@ -293,28 +255,32 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
 
         for (IWirelessPoint sign : signs) {
             Location loc = new Location(Bukkit.getWorld(sign.getWorld()), sign.getX(), sign.getY(), sign.getZ());
-            Sign signBlock = (Sign) loc.getBlock();
+            if (!(loc.getBlock().getState() instanceof Sign))
+                continue;
+            Sign signBlock = (Sign) loc.getBlock().getState();
             signBlock.setLine(1, newChannelName);
+            signBlock.update();
         }
 
-        String sql = new UpdateBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName))
-                .set(sqlChannelName + "='" + newChannelName + "'")
-                .where(sqlChannelName + "='" + channelName + "'")
+        // The points reference the channel by id, so renaming is a single row update
+        String sql = new UpdateBuilder(SQLiteMap.sqlTableChannels)
+                .set(sqlChannelName + " = ?")
+                .where(sqlChannelName + " = ?")
                 .toString();
         WirelessRedstone.getWRLogger().debug("Adding sql: " + sql);
 
         try {
-            PreparedStatement update = sqLite.getConnection().prepareStatement(sql);
-
+            PreparedStatement update = sqLite.prepareStatement(sql);
+            update.setString(1, newChannelName);
+            update.setString(2, channelName);
             sqLite.execute(update);
-            sql = "RENAME TABLE '" + channelName + "' TO '" + newChannelName + "'";
-            WirelessRedstone.getWRLogger().debug("Adding sql: " + sql);
-            PreparedStatement rename = sqLite.getConnection().prepareStatement(sql);
-            sqLite.execute(rename);
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
 
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().renameChannel(channelName, newChannelName);
         return true;
     }
 
@@ -324,19 +290,12 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
         if (channelFolder.listFiles().length > 0) backupData("db");
 
         try {
-            // Get the names of all the tables
-            PreparedStatement master = sqLite.getConnection().prepareStatement("SELECT 'name' FROM sqlite_master WHERE type = \"table\"");
-            ResultSet rs = sqLite.query(master);
-            ArrayList<String> tables = new ArrayList<String>();
-            while (rs.next()) {
-                tables.add(rs.getString(sqlChannelName));
-            }
-            rs.close();
+            // Erase all the channels, their points are removed by the foreign key
+            PreparedStatement delete = sqLite.prepareStatement(new DeleteBuilder(SQLiteMap.sqlTableChannels).toString());
+            sqLite.execute(delete);
 
-            // Erase all the tables
-            for (String channelName : tables) {
-                removeWirelessChannel(channelName, false);
-            }
+            if (WirelessRedstone.getGlobalCache() != null)
+                WirelessRedstone.getGlobalCache().update();
 
             return true;
         } catch (SQLException e) {
@@ -507,35 +466,43 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
             }
         }
 
-        try {
-            ArrayList<WirelessChannel> channels = new ArrayList<>();
-
-            ResultSet rs = null;
-
+        // The background flush may not commit while the result sets are read
+        synchronized (sqLite) {
             try {
-                PreparedStatement master = sqLite.getConnection().prepareStatement("SELECT `name` FROM sqlite_master WHERE type = \"table\"");
-                rs = sqLite.query(master);
+                HashMap<Integer, WirelessChannel> channels = new LinkedHashMap<>();
+
+                String sql = new SelectBuilder(SQLiteMap.sqlTableChannels).toString();
+                WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
+                PreparedStatement select = sqLite.prepareStatement(sql);
+                ResultSet rs = sqLite.query(select);
+                while (rs.next()) {
+                    WirelessChannel channel = readWirelessChannel(rs);
+                    channels.put(channel.getId(), channel);
+                }
+                rs.close();
+                select.close();
+
+                // All the points in one pass, grouped by the channel they belong to
+                sql = new SelectBuilder(SQLiteMap.sqlTableSigns).orderBy(sqlSignChannelId).toString();
+                WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
+                select = sqLite.prepareStatement(sql);
+                rs = sqLite.query(select);
+                while (rs.next()) {
+                    WirelessChannel channel = channels.get(rs.getInt(sqlSignChannelId));
+                    if (channel != null)
+                        addWirelessPoint(channel, readWirelessPoint(rs));
+                }
+                rs.close();
+                select.close();
+
+                return new ArrayList<>(channels.values());
+            } catch (SQLException e) {
+                e.printStackTrace();
             } catch (NullPointerException ex) {
                 WirelessRedstone.getWRLogger().severe("SQL: NullPointerException when asking for the list of channels!");
-                return new ArrayList<>();
-            }
-            ArrayList<String> channelNames = new ArrayList<>();
-            while (rs.next()) {
-                channelNames.add(getNormalName(rs.getString("name")));
             }
-            rs.close();
-
-            for (String channelName : channelNames) {
-                channels.add(getWirelessChannel(channelName, forceUpdate));
-            }
-
-            return channels;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } catch (NullPointerException ignored) {
-
         }
-        return null; // Channel not found
+        return new ArrayList<>();
     }
 
     @Override
@@ -547,285 +514,63 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
     public WirelessChannel getWirelessChannel(String r_channelName, Boolean forceUpdate) {
         if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && !forceUpdate) {
             if (WirelessRedstone.getGlobalCache().getAllChannels() != null) {
-                WirelessChannel channel = null;
-
-                for (WirelessChannel cacheChannel : WirelessRedstone.getGlobalCache().getAllChannels()) {
-                    if (cacheChannel.getName().equalsIgnoreCase(r_channelName)) {
-                        channel = cacheChannel;
-                        break;
-                    }
-                }
-
 //                WirelessRedstone.getWRLogger().debug("Accessed WirelessChannel from cache");
-                return channel;
+                return WirelessRedstone.getGlobalCache().getWirelessChannel(r_channelName);
             }
         }
 
-        String sql = "SELECT `name` FROM sqlite_master WHERE type = \"table\"";
+        String sql = new SelectBuilder(SQLiteMap.sqlTableChannels).where(sqlChannelName + " = ?").toString();
         WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
 
-        try {
-            PreparedStatement master = sqLite.getConnection().prepareStatement(sql);
-            ResultSet rs = sqLite.query(master);
-            ArrayList<String> channels = new ArrayList<String>();
-
-            while (rs.next()) {
-                channels.add(getNormalName(rs.getString("name")));
-            }
-            rs.close(); // Always close the ResultSet
-
-            for (String channelName : channels) {
-                if (channelName.equals(r_channelName)) {
-                    // Get the ResultSet from the table we want
-                    sql = "SELECT * FROM '" + WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName) + "'";
-                    WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
-                    master = sqLite.getConnection().prepareStatement(sql);
-                    ResultSet rsChannelInfo = sqLite.query(master);
-                    try {
-                        rsChannelInfo.getString("name");
-                    } catch (SQLException ex) {
-                        sql = "DROP TABLE " + WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName);
-                        WirelessRedstone.getWRLogger().debug("Executing sql: " + sql);
-                        PreparedStatement drop = sqLite.getConnection().prepareStatement(sql);
-                        sqLite.execute(drop);
-                        rsChannelInfo.close();
-                        return null;
-                    }
-
-                    // Create an empty WirelessChannel
-                    WirelessChannel channel = new WirelessChannel(rsChannelInfo.getString(sqlChannelName));
-
-                    // Set the Id, the name, and the locked variable
-                    channel.setId(rsChannelInfo.getInt(sqlChannelId));
-                    if (rsChannelInfo.getInt(sqlChannelLocked) == 1) channel.setLocked(true);
-                    else if (rsChannelInfo.getInt(sqlChannelLocked) == 0) channel.setLocked(false);
-                    else channel.setLocked(false);
-
-                    // Set the owners
-                    ArrayList<String> owners = new ArrayList<String>();
-                    while (rsChannelInfo.next()) {
-                        if (rsChannelInfo.getString(sqlChannelOwners) != null)
-                            owners.add(rsChannelInfo.getString(sqlChannelOwners));
-                    }
-                    channel.setOwners(owners);
-                    rsChannelInfo.close();
-
-                    // Because a SQLite ResultSet is TYPE_FORWARD only, we have
-                    // to create a third ResultSet and close the second
-                    sql = "SELECT * FROM '" + WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName) + "'";
-                    WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
-                    master = sqLite.getConnection().prepareStatement(sql);
-                    ResultSet rsSigns = sqLite.query(master);
-
-                    // Set the wireless signs
-                    ArrayList<WirelessReceiver> receivers = new ArrayList<WirelessReceiver>();
-                    ArrayList<WirelessTransmitter> transmitters = new ArrayList<WirelessTransmitter>();
-                    ArrayList<WirelessScreen> screens = new ArrayList<WirelessScreen>();
-                    rsSigns.next();// Because first row does not contain a wireless sign
-                    while (rsSigns.next()) {
-                        if (rsSigns.getString(sqlSignType) == null)
-                            continue;
+        synchronized (sqLite) {
+            try {
+                PreparedStatement select = sqLite.prepareStatement(sql);
+                select.setString(1, r_channelName);
+                ResultSet rs = sqLite.query(select);
 
-                        if (rsSigns.getString(sqlSignType).equals("receiver")) {
-                            WirelessReceiver receiver = new WirelessReceiver();
-                            receiver.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                receiver.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (receiver.getIsWallSign())
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            receiver.setOwner(rsSigns.getString(sqlSignOwner));
-                            receiver.setWorld(rsSigns.getString(sqlSignWorld));
-                            receiver.setX(rsSigns.getInt(sqlSignX));
-                            receiver.setY(rsSigns.getInt(sqlSignY));
-                            receiver.setZ(rsSigns.getInt(sqlSignZ));
-                            receivers.add(receiver);
-                        } else if (rsSigns.getString(sqlSignType).equals("receiver_inverter")) {
-                            WirelessReceiverInverter receiver = new WirelessReceiverInverter();
-                            receiver.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                receiver.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (receiver.getIsWallSign())
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            receiver.setOwner(rsSigns.getString(sqlSignOwner));
-                            receiver.setWorld(rsSigns.getString(sqlSignWorld));
-                            receiver.setX(rsSigns.getInt(sqlSignX));
-                            receiver.setY(rsSigns.getInt(sqlSignY));
-                            receiver.setZ(rsSigns.getInt(sqlSignZ));
-                            receivers.add(receiver);
-                        } else if (rsSigns.getString(sqlSignType).contains("receiver_delayer_")) {
-                            String signtype = rsSigns.getString(sqlSignType);
-                            signtype = signtype.split("receiver_delayer_")[1];
-                            int delay;
-                            try {
-                                delay = Integer.parseInt(signtype);
-                            } catch (NumberFormatException ex) {
-                                delay = 0;
-                            }
-                            WirelessReceiverDelayer receiver = new WirelessReceiverDelayer(delay);
-                            receiver.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                receiver.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (receiver.getIsWallSign())
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            receiver.setOwner(rsSigns.getString(sqlSignOwner));
-                            receiver.setWorld(rsSigns.getString(sqlSignWorld));
-                            receiver.setX(rsSigns.getInt(sqlSignX));
-                            receiver.setY(rsSigns.getInt(sqlSignY));
-                            receiver.setZ(rsSigns.getInt(sqlSignZ));
-                            receivers.add(receiver);
-                        } else if (rsSigns.getString(sqlSignType).contains("receiver_switch_")) {
-                            String signtype = rsSigns.getString(sqlSignType);
-                            signtype = signtype.split("receiver_switch_")[1];
-                            boolean state;
-                            try {
-                                state = Boolean.parseBoolean(signtype);
-                            } catch (NumberFormatException ex) {
-                                state = false;
-                            }
-                            WirelessReceiverSwitch receiver = new WirelessReceiverSwitch(state);
-                            receiver.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                receiver.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (receiver.getIsWallSign())
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            receiver.setOwner(rsSigns.getString(sqlSignOwner));
-                            receiver.setWorld(rsSigns.getString(sqlSignWorld));
-                            receiver.setX(rsSigns.getInt(sqlSignX));
-                            receiver.setY(rsSigns.getInt(sqlSignY));
-                            receiver.setZ(rsSigns.getInt(sqlSignZ));
-                            receivers.add(receiver);
-                        } else if (rsSigns.getString(sqlSignType).contains("receiver_clock_")) {
-                            String signtype = rsSigns.getString(sqlSignType);
-                            signtype = signtype.split("receiver_clock_")[1];
-                            int delay;
-                            try {
-                                delay = Integer.parseInt(signtype);
-                            } catch (NumberFormatException ex) {
-                                delay = 20;
-                            }
-                            WirelessReceiverClock receiver = new WirelessReceiverClock(delay);
-                            receiver.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                receiver.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (receiver.getIsWallSign())
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        receiver.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            receiver.setOwner(rsSigns.getString(sqlSignOwner));
-                            receiver.setWorld(rsSigns.getString(sqlSignWorld));
-                            receiver.setX(rsSigns.getInt(sqlSignX));
-                            receiver.setY(rsSigns.getInt(sqlSignY));
-                            receiver.setZ(rsSigns.getInt(sqlSignZ));
-                            receivers.add(receiver);
-                        } else if (rsSigns.getString(sqlSignType).equals("transmitter")) {
-                            WirelessTransmitter transmitter = new WirelessTransmitter();
-                            transmitter.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                transmitter.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (transmitter.getIsWallSign())
-                                        transmitter.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        transmitter.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            transmitter.setOwner(rsSigns.getString(sqlSignOwner));
-                            transmitter.setWorld(rsSigns.getString(sqlSignWorld));
-                            transmitter.setX(rsSigns.getInt(sqlSignX));
-                            transmitter.setY(rsSigns.getInt(sqlSignY));
-                            transmitter.setZ(rsSigns.getInt(sqlSignZ));
-                            transmitters.add(transmitter);
-                        }
-                        if (rsSigns.getString(sqlSignType).equals("screen")) {
-                            WirelessScreen screen = new WirelessScreen();
-                            screen.setIsWallSign(rsSigns.getBoolean(sqlIsWallSign));
-                            try {
-                                screen.setDirection(BlockFace.valueOf(rsSigns.getString(sqlDirection).toUpperCase()));
-                            } catch (IllegalArgumentException e) {
-                                try {
-                                    Integer directionInt = Integer.parseInt(rsSigns.getString(sqlDirection));
-                                    if (screen.getIsWallSign())
-                                        screen.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                    else
-                                        screen.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(directionInt));
-                                } catch (NumberFormatException ignored) {
-                                }
-                            }
-                            screen.setOwner(rsSigns.getString(sqlSignOwner));
-                            screen.setWorld(rsSigns.getString(sqlSignWorld));
-                            screen.setX(rsSigns.getInt(sqlSignX));
-                            screen.setY(rsSigns.getInt(sqlSignY));
-                            screen.setZ(rsSigns.getInt(sqlSignZ));
-                            screens.add(screen);
-                        }
-                    }
-                    channel.setReceivers(receivers);
-                    channel.setTransmitters(transmitters);
-                    channel.setScreens(screens);
+                if (!rs.next()) {
+                    rs.close();
+                    select.close();
+                    return null; // Channel not found
+                }
 
-                    // Done. Return channel
-                    rsSigns.close();
-                    return channel;
+                WirelessChannel channel = readWirelessChannel(rs);
+                rs.close();
+                select.close();
+
+                sql = new SelectBuilder(SQLiteMap.sqlTableSigns).where(sqlSignChannelId + " = ?").toString();
+                WirelessRedstone.getWRLogger().debug("Executing sql (sync): " + sql);
+                select = sqLite.prepareStatement(sql);
+                select.setInt(1, channel.getId());
+                rs = sqLite.query(select);
+                while (rs.next()) {
+                    addWirelessPoint(channel, readWirelessPoint(rs));
                 }
+                rs.close();
+                select.close();
+
+                return channel;
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null; // Channel not found
     }
 
     @Override
     public IWirelessPoint getWirelessRedstoneSign(Location loc) {
+        if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && WirelessRedstone.getGlobalCache().getAllChannels() != null)
+            return WirelessRedstone.getGlobalCache().getWirelessPoint(loc);
+
         for (WirelessChannel channel : getAllChannels()) {
             for (WirelessReceiver receiver : channel.getReceivers()) {
-                if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc)) return receiver;
+                if (WirelessRedstone.getUtils().sameLocation(receiver, loc)) return receiver;
             }
             for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-                if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc)) return transmitter;
+                if (WirelessRedstone.getUtils().sameLocation(transmitter, loc)) return transmitter;
             }
             for (WirelessScreen screen : channel.getScreens()) {
-                if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc)) return screen;
+                if (WirelessRedstone.getUtils().sameLocation(screen, loc)) return screen;
             }
         }
         return null;
@@ -870,15 +615,20 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
 
     @Override
     public String getWirelessChannelName(Location loc) {
+        if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && WirelessRedstone.getGlobalCache().getAllChannels() != null) {
+            WirelessChannel channel = WirelessRedstone.getGlobalCache().getWirelessChannel(loc);
+            return channel != null ? channel.getName() : null;
+        }
+
         for (WirelessChannel channel : getAllChannels()) {
             for (WirelessReceiver receiver : channel.getReceivers()) {
-                if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc)) return channel.getName();
+                if (WirelessRedstone.getUtils().sameLocation(receiver, loc)) return channel.getName();
             }
             for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-                if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc)) return channel.getName();
+                if (WirelessRedstone.getUtils().sameLocation(transmitter, loc)) return channel.getName();
             }
             for (WirelessScreen screen : channel.getScreens()) {
-                if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc)) return channel.getName();
+                if (WirelessRedstone.getUtils().sameLocation(screen, loc)) return channel.getName();
             }
         }
         return null;
@@ -887,29 +637,23 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
     @Override
     public void updateChannel(String channelName, WirelessChannel channel) {
         try {
-            int locked = (channel.isLocked()) ? 1 : 0;
-            PreparedStatement update = sqLite.getConnection().prepareStatement(new UpdateBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName))
-                    .set(sqlChannelName + "='" + channel.getName() + "'")
-                    .set(sqlChannelLocked + "='" + locked + "'")
-                    .where(sqlChannelId + "='" + channel.getId() + "'")
+            PreparedStatement update = sqLite.prepareStatement(new UpdateBuilder(SQLiteMap.sqlTableChannels)
+                    .set(sqlChannelName + " = ?")
+                    .set(sqlChannelLocked + " = ?")
+                    .set(sqlChannelOwners + " = ?")
+                    .where(sqlChannelName + " = ?")
                     .toString());
+            update.setString(1, channel.getName());
+            update.setInt(2, channel.isLocked() ? 1 : 0);
+            update.setString(3, joinOwners(channel.getOwners()));
+            update.setString(4, channelName);
             sqLite.execute(update);
-
-            // Then update the owners
-            /*
-             * Temporary disabled because it makes the plugin crashing.
-			 * statement.executeUpdate("ALTER TABLE " + getDBName(channelName) +
-			 * " DROP COLUMN " + sqlChannelOwners);
-			 * statement.executeUpdate("ALTER TABLE " + getDBName(channelName) +
-			 * " ADD COLUMN " + sqlChannelOwners); for(String owner :
-			 * channel.getOwners()) { statement.executeUpdate("INSERT INTO " +
-			 * getDBName(channelName) + " (" + sqlChannelOwners + ") VALUES " +
-			 * owner); }
-			 */
-
         } catch (SQLException e) {
             e.printStackTrace();
         }
+
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().updateChannel(channelName, channel);
     }
 
     @Override
@@ -918,12 +662,19 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
             for (WirelessReceiver receiver : channel.getReceivers()) {
                 if (receiver instanceof WirelessReceiverSwitch) {
                     WirelessRedstone.getWRLogger().debug("Updating Switcher from channel " + channel.getName());
-                    updateSwitch(channel, receiver);
+                    updateSwitch((WirelessReceiverSwitch) receiver);
                 }
             }
         }
     }
 
+    @Override
+    public void updateSwitchStates(Collection<WirelessReceiverSwitch> receivers) {
+        for (WirelessReceiverSwitch receiver : receivers) {
+            updateSwitch(receiver);
+        }
+    }
+
     @Override
     public void checkChannel(String channelName) {
         WirelessChannel channel = getWirelessChannel(channelName);
@@ -940,43 +691,29 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
     private void removeWirelessChannel(String channelName, Boolean removeSigns) {
         try {
             if (removeSigns)
-                WirelessRedstone.getSignManager().removeSigns(getWirelessChannel(channelName, true));
+                WirelessRedstone.getSignManager().removeSigns(getWirelessChannel(channelName));
 
-            if (!sqlTableExists(channelName)) return;
-            PreparedStatement drop = sqLite.getConnection().prepareStatement("DROP TABLE " + WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName));
-            sqLite.execute(drop);
+            // The points are removed by the foreign key
+            PreparedStatement delete = sqLite.prepareStatement(new DeleteBuilder(SQLiteMap.sqlTableChannels)
+                    .where(sqlChannelName + " = ?")
+                    .toString());
+            delete.setString(1, channelName);
+            sqLite.execute(delete);
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
-            if (WirelessRedstone.getGlobalCache() == null)
-                Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
-                    @Override
-                    public void run() {
-                        WirelessRedstone.getGlobalCache().update();
-                    }
-                }, 1L);
-            else WirelessRedstone.getGlobalCache().update();
+            if (WirelessRedstone.getGlobalCache() != null)
+                WirelessRedstone.getGlobalCache().removeChannel(channelName);
         }
     }
 
     public boolean initiate(boolean allowConvert) {
-//        WirelessRedstone.getWRLogger().debug("Establishing sqLite.getConnection() to database...");
-//
-//        try {
-//            sqLite.openConnection();
-//        } catch (SQLException | ClassNotFoundException ex) {
-//            WirelessRedstone.getWRLogger().severe("Error while starting plugin. Message: " + ex.getLocalizedMessage() + ". Enable debug mode to see the full stack trace.");
-//
-//            if (ConfigManager.getConfig().getDebugMode())
-//                ex.printStackTrace();
-//
-//            WirelessRedstone.getWRLogger().severe("**********");
-//            WirelessRedstone.getWRLogger().severe("Plugin can't connect to the SQLite database. Shutting down plugin...");
-//            WirelessRedstone.getWRLogger().severe("**********");
-//            return false;
-//        }
-//
-//        WirelessRedstone.getWRLogger().debug("sqLite.getConnection() established.");
+        if (!updateSchema()) {
+            WirelessRedstone.getWRLogger().severe("**********");
+            WirelessRedstone.getWRLogger().severe("Could not prepare the SQLite database. Shutting down plugin...");
+            WirelessRedstone.getWRLogger().severe("**********");
+            return false;
+        }
 
         if (canConvert() != null && allowConvert) {
             WirelessRedstone.getWRLogger().info("WirelessRedstone found a channel in a different storage format.");
@@ -1000,110 +737,420 @@ public class SQLiteStorage implements IWirelessStorageConfiguration {
         return true;
     }
 
-    private boolean sqlTableExists(String name) {
-        try {
-            Statement statement = sqLite.getConnection().createStatement();
-            ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = \"table\"");
+    /**
+     * Create the channels and wireless_points tables and move the channels from the old layout, where every channel
+     * had its own table, into them.
+     *
+     * @return false if the database could not be prepared
+     */
+    private boolean updateSchema() {
+        synchronized (sqLite) {
+            Connection connection = sqLite.getConnection();
+            try {
+                int version = getSchemaVersion();
+                if (version >= SCHEMA_VERSION) {
+                    createTables(connection);
+                    return true;
+                }
 
-            while (rs.next()) {
-                if (getNormalName(rs.getString(sqlChannelName)).equals(name)) {
-                    rs.close();
+                ArrayList<String> legacyTables = new ArrayList<>();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%'");
+                while (rs.next()) {
+                    legacyTables.add(rs.getString("name"));
+                }
+                rs.close();
+                statement.close();
+
+                if (!legacyTables.isEmpty()) {
+                    WirelessRedstone.getWRLogger().info("Converting " + legacyTables.size() + " channels to the new database layout...");
+                    backupData("db");
+                }
+
+                // Read everything first, a legacy channel can have the same name as one of the new tables
+                ArrayList<WirelessChannel> channels = new ArrayList<>();
+                ArrayList<String> convertedTables = new ArrayList<>();
+                for (String table : legacyTables) {
+                    try {
+                        WirelessChannel channel = readLegacyChannel(connection, table);
+                        if (channel != null)
+                            channels.add(channel);
+                        convertedTables.add(table);
+                    } catch (SQLException e) {
+                        // The new tables can't be created next to a table with the same name
+                        if (table.equalsIgnoreCase(SQLiteMap.sqlTableChannels) || table.equalsIgnoreCase(SQLiteMap.sqlTableSigns))
+                            throw e;
+
+                        WirelessRedstone.getWRLogger().warning("Could not read the channel in table " + table + " ("
+                                + e.getLocalizedMessage() + "), it will not be converted. The table is left in the database.");
+                    }
+                }
+
+                connection.setAutoCommit(false);
+                try {
+                    // Tables that couldn't be read are kept, they are the only copy besides the backup
+                    statement = connection.createStatement();
+                    for (String table : convertedTables) {
+                        statement.executeUpdate("DROP TABLE '" + table + "'");
+                    }
                     statement.close();
-                    return true;
+
+                    createTables(connection);
+
+                    HashMap<String, WirelessChannel> inserted = new HashMap<>();
+                    for (WirelessChannel channel : channels) {
+                        if (inserted.containsKey(channel.getName().toLowerCase())) {
+                            WirelessRedstone.getWRLogger().warning("Channel " + channel.getName() + " exists more than once, only the first one is kept.");
+                            continue;
+                        }
+                        inserted.put(channel.getName().toLowerCase(), channel);
+                        insertChannel(channel);
+                        insertLegacyPoints(connection, channel);
+                    }
+
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
                 }
+
+                if (!legacyTables.isEmpty())
+                    WirelessRedstone.getWRLogger().info("Done! Converted " + channels.size() + " channels to the new database layout.");
+                return true;
+            } catch (SQLException e) {
+                WirelessRedstone.getWRLogger().severe("Error while updating the SQLite database: " + e.getLocalizedMessage()
+                        + ". Enable debug mode to see the full stack trace.");
+                if (ConfigManager.getConfig().getDebugMode())
+                    e.printStackTrace();
+                return false;
             }
+        }
+    }
+
+    private void createTables(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate(new CreateBuilder(SQLiteMap.sqlTableChannels)
+                .addColumn(sqlChannelId, "INTEGER PRIMARY KEY AUTOINCREMENT")
+                .addColumn(sqlChannelName, "char(64) NOT NULL UNIQUE COLLATE NOCASE")
+                .addColumn(sqlChannelLocked, "int(1) NOT NULL DEFAULT 0")
+                .addColumn(sqlChannelOwners, "text")
+                .toString());
+        statement.executeUpdate(new CreateBuilder(SQLiteMap.sqlTableSigns)
+                .addColumn(sqlChannelId, "INTEGER PRIMARY KEY AUTOINCREMENT")
+                .addColumn(sqlSignChannelId, "int NOT NULL REFERENCES " + SQLiteMap.sqlTableChannels
+                        + "(" + sqlChannelId + ") ON DELETE CASCADE")
+                .addColumn(sqlSignType, "char(255) NOT NULL")
+                .addColumn(sqlSignX, "int").addColumn(sqlSignY, "int").addColumn(sqlSignZ, "int")
+                .addColumn(sqlSignWorld, "char(255)")
+                .addColumn(sqlDirection, "char(255)").addColumn(sqlIsWallSign, "int(1)")
+                .addColumn(sqlSignOwner, "char(255)")
+                .toString());
+        statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_" + SQLiteMap.sqlTableSigns + "_" + sqlSignChannelId
+                + " ON " + SQLiteMap.sqlTableSigns + " (" + sqlSignChannelId + ")");
+        statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_" + SQLiteMap.sqlTableSigns + "_location"
+                + " ON " + SQLiteMap.sqlTableSigns + " (" + sqlSignWorld + ", " + sqlSignX + ", " + sqlSignY + ", " + sqlSignZ + ")");
+        // The UNIQUE constraint on the channel name is backed by its own index
+        statement.executeUpdate("PRAGMA user_version = " + SCHEMA_VERSION);
+        statement.close();
+    }
 
-            rs.close();
+    private int getSchemaVersion() throws SQLException {
+        Statement statement = sqLite.getConnection().createStatement();
+        ResultSet rs = statement.executeQuery("PRAGMA user_version");
+        int version = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        statement.close();
+        return version;
+    }
+
+    private WirelessChannel readLegacyChannel(Connection connection, String table) throws SQLException {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT * FROM '" + table + "'");
+
+        WirelessChannel channel = null;
+        ArrayList<String> owners = new ArrayList<>();
+        while (rs.next()) {
+            if (channel == null && rs.getString(sqlChannelName) != null) {
+                // The first row contains the channel information
+                channel = new WirelessChannel(rs.getString(sqlChannelName));
+                channel.setLocked(rs.getInt(sqlChannelLocked) == 1);
+            }
+            if (rs.getString(sqlChannelOwners) != null)
+                owners.add(rs.getString(sqlChannelOwners));
+        }
+        rs.close();
+
+        if (channel == null) {
+            WirelessRedstone.getWRLogger().debug("Table " + table + " does not contain a channel, skipping it.");
             statement.close();
-            return false;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            return null;
+        }
+        channel.setOwners(owners);
+
+        rs = statement.executeQuery("SELECT * FROM '" + table + "' WHERE " + sqlSignType + " IS NOT NULL");
+        while (rs.next()) {
+            addWirelessPoint(channel, readWirelessPoint(rs));
+        }
+        rs.close();
+        statement.close();
+
+        return channel;
+    }
+
+    private void insertLegacyPoints(Connection connection, WirelessChannel channel) throws SQLException {
+        PreparedStatement insert = connection.prepareStatement(new InsertBuilder(SQLiteMap.sqlTableSigns)
+                .addColumn(sqlSignChannelId).addValue("?")
+                .addColumn(sqlSignType).addValue("?")
+                .addColumn(sqlSignX).addValue("?")
+                .addColumn(sqlSignY).addValue("?")
+                .addColumn(sqlSignZ).addValue("?")
+                .addColumn(sqlSignWorld).addValue("?")
+                .addColumn(sqlDirection).addValue("?")
+                .addColumn(sqlIsWallSign).addValue("?")
+                .addColumn(sqlSignOwner).addValue("?")
+                .toString());
+
+        ArrayList<IWirelessPoint> points = new ArrayList<IWirelessPoint>();
+        points.addAll(channel.getReceivers());
+        points.addAll(channel.getTransmitters());
+        points.addAll(channel.getScreens());
+        for (IWirelessPoint point : points) {
+            insert.setInt(1, channel.getId());
+            insert.setString(2, getSignType(point));
+            insert.setInt(3, point.getX());
+            insert.setInt(4, point.getY());
+            insert.setInt(5, point.getZ());
+            insert.setString(6, point.getWorld());
+            insert.setString(7, point.getDirection().toString().toUpperCase());
+            insert.setInt(8, point.getIsWallSign() ? 1 : 0);
+            insert.setString(9, point.getOwner());
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        insert.close();
+    }
+
+    private void insertChannel(WirelessChannel channel) throws SQLException {
+        String sql = new InsertBuilder(SQLiteMap.sqlTableChannels)
+                .addColumn(sqlChannelName).addValue("?")
+                .addColumn(sqlChannelLocked).addValue("?")
+                .addColumn(sqlChannelOwners).addValue("?")
+                .toString();
+        WirelessRedstone.getWRLogger().debug("Executing sql: " + sql);
+
+        //We can't async this statement because the points need the id of the channel
+        PreparedStatement insert = sqLite.prepareStatement(sql);
+        insert.setString(1, channel.getName());
+        insert.setInt(2, channel.isLocked() ? 1 : 0);
+        insert.setString(3, joinOwners(channel.getOwners()));
+        insert.executeUpdate();
+
+        ResultSet keys = insert.getGeneratedKeys();
+        if (keys.next())
+            channel.setId(keys.getInt(1));
+        keys.close();
+        insert.close();
+    }
+
+    private boolean channelExists(String name) {
+        synchronized (sqLite) {
+            try {
+                PreparedStatement select = sqLite.prepareStatement(new SelectBuilder(SQLiteMap.sqlTableChannels)
+                        .column(sqlChannelId)
+                        .where(sqlChannelName + " = ?")
+                        .toString());
+                select.setString(1, name);
+                ResultSet rs = sqLite.query(select);
+                boolean exists = rs.next();
+
+                rs.close();
+                select.close();
+                return exists;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
+            }
         }
     }
 
-    private void updateSwitch(WirelessChannel channel, WirelessReceiver receiver) {
+    // Queued, the switches are written together with the other pending statements in one transaction
+    private void updateSwitch(WirelessReceiverSwitch receiver) {
         try {
-            PreparedStatement update = sqLite.getConnection().prepareStatement(new UpdateBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channel.getName()))
-                    .set(sqlSignType + "='" + "receiver_switch_" + ((WirelessReceiverSwitch) receiver).getState() + "'")
-                    .where(sqlSignWorld + "='" + receiver.getWorld() + "'")
-                    .where(sqlSignX + "='" + receiver.getX() + "'")
-                    .where(sqlSignY + "='" + receiver.getY() + "'")
-                    .where(sqlSignZ + "='" + receiver.getZ() + "'")
+            PreparedStatement update = sqLite.prepareStatement(new UpdateBuilder(SQLiteMap.sqlTableSigns)
+                    .set(sqlSignType + " = ?")
+                    .where(sqlSignWorld + " = ?")
+                    .where(sqlSignX + " = ?")
+                    .where(sqlSignY + " = ?")
+                    .where(sqlSignZ + " = ?")
                     .toString());
+            update.setString(1, "receiver_switch_" + receiver.getState());
+            update.setString(2, receiver.getWorld());
+            update.setInt(3, receiver.getX());
+            update.setInt(4, receiver.getY());
+            update.setInt(5, receiver.getZ());
 
-            update.execute();
-            update.close(); //We don't want to update the cache because this is only run when the plugin disables
+            sqLite.execute(update); //The cache already has the new state
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     private boolean removeWirelessPoint(String channelName, Location loc, String world) {
+        if (getWirelessChannel(channelName) == null)
+            return false;
+
         try {
-            String sql = new DeleteBuilder(WirelessRedstone.getUtils().getDatabaseFriendlyName(channelName))
-                    .where(sqlSignX + "='" + loc.getBlockX() + "'")
-                    .where(sqlSignY + "='" + loc.getBlockY() + "'")
-                    .where(sqlSignZ + "='" + loc.getBlockZ() + "'")
-                    .where(sqlSignWorld + "='" + world + "'")
+            String sql = new DeleteBuilder(SQLiteMap.sqlTableSigns)
+                    .where(sqlSignWorld + " = ?")
+                    .where(sqlSignX + " = ?")
+                    .where(sqlSignY + " = ?")
+                    .where(sqlSignZ + " = ?")
+                    .where(sqlSignChannelId + " = (SELECT " + sqlChannelId + " FROM " + SQLiteMap.sqlTableChannels
+                            + " WHERE " + sqlChannelName + " = ?)")
                     .toString();
             WirelessRedstone.getWRLogger().debug("Statement to delete wireless sign : " + sql);
-            PreparedStatement delete = sqLite.getConnection().prepareStatement(sql);
+            PreparedStatement delete = sqLite.prepareStatement(sql);
+            delete.setString(1, world);
+            delete.setInt(2, loc.getBlockX());
+            delete.setInt(3, loc.getBlockY());
+            delete.setInt(4, loc.getBlockZ());
+            delete.setString(5, channelName);
             sqLite.execute(delete);
         } catch (SQLException ex) {
             ex.printStackTrace();
             return false;
         }
 
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().removePoint(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
         return true;
     }
 
-    /**
-     * Private method to purge data. Don't use it anywhere else
-     */
-    private boolean removeWirelessReceiver(String channelName, Location loc, String world) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeReceiverAt(loc, world);
-            return removeWirelessPoint(channelName, loc, world);
-        } else return false;
+    private WirelessChannel readWirelessChannel(ResultSet rs) throws SQLException {
+        WirelessChannel channel = new WirelessChannel(rs.getString(sqlChannelName));
+        channel.setId(rs.getInt(sqlChannelId));
+        channel.setLocked(rs.getInt(sqlChannelLocked) == 1);
+
+        ArrayList<String> owners = new ArrayList<>();
+        String ownersStr = rs.getString(sqlChannelOwners);
+        if (ownersStr != null) {
+            for (String owner : ownersStr.split(",")) {
+                if (!owner.isEmpty())
+                    owners.add(owner);
+            }
+        }
+        channel.setOwners(owners);
+        return channel;
     }
 
     /**
-     * Private method to purge data. Don't use it anywhere else
+     * Read the wireless point in the current row.
+     *
+     * @param rs ResultSet positioned on a row of wireless_points (or a legacy channel table)
+     * @return the point or null if the sign type is unknown
      */
-    private boolean removeWirelessTransmitter(String channelName, Location loc, String world) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeTransmitterAt(loc, world);
-            return removeWirelessPoint(channelName, loc, world);
-        } else return false;
+    private IWirelessPoint readWirelessPoint(ResultSet rs) throws SQLException {
+        String signType = rs.getString(sqlSignType);
+        if (signType == null)
+            return null;
+
+        IWirelessPoint point;
+        if (signType.equals("receiver")) {
+            point = new WirelessReceiver();
+        } else if (signType.equals("receiver_inverter")) {
+            point = new WirelessReceiverInverter();
+        } else if (signType.startsWith("receiver_delayer_")) {
+            int delay;
+            try {
+                delay = Integer.parseInt(signType.substring("receiver_delayer_".length()));
+            } catch (NumberFormatException ex) {
+                delay = 0;
+            }
+            point = new WirelessReceiverDelayer(delay);
+        } else if (signType.startsWith("receiver_switch_")) {
+            point = new WirelessReceiverSwitch(Boolean.parseBoolean(signType.substring("receiver_switch_".length())));
+        } else if (signType.startsWith("receiver_clock_")) {
+            int delay;
+            try {
+                delay = Integer.parseInt(signType.substring("receiver_clock_".length()));
+            } catch (NumberFormatException ex) {
+                delay = 20;
+            }
+            point = new WirelessReceiverClock(delay);
+        } else if (signType.equals("transmitter")) {
+            point = new WirelessTransmitter();
+        } else if (signType.equals("screen")) {
+            point = new WirelessScreen();
+        } else {
+            return null;
+        }
+
+        point.setIsWallSign(rs.getBoolean(sqlIsWallSign));
+        try {
+            point.setDirection(BlockFace.valueOf(rs.getString(sqlDirection).toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            try {
+                point.setDirection(WirelessRedstone.getUtils().intToBlockFaceSign(Integer.parseInt(rs.getString(sqlDirection))));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        point.setOwner(rs.getString(sqlSignOwner));
+        point.setWorld(rs.getString(sqlSignWorld));
+        point.setX(rs.getInt(sqlSignX));
+        point.setY(rs.getInt(sqlSignY));
+        point.setZ(rs.getInt(sqlSignZ));
+        return point;
     }
 
-    /**
-     * Private method to purge data. Don't use it anywhere else
-     */
-    private boolean removeWirelessScreen(String channelName, Location loc, String world) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeScreenAt(loc, world);
-            return removeWirelessPoint(channelName, loc, world);
-        } else return false;
+    private void addWirelessPoint(WirelessChannel channel, IWirelessPoint point) {
+        if (point instanceof WirelessReceiver)
+            channel.addReceiver((WirelessReceiver) point);
+        else if (point instanceof WirelessTransmitter)
+            channel.addTransmitter((WirelessTransmitter) point);
+        else if (point instanceof WirelessScreen)
+            channel.addScreen((WirelessScreen) point);
     }
 
-    private String getNormalName(String asciiName) {
-        if (asciiName.contains("num_")) {
-            asciiName = asciiName.replace("num_", "");
-            return asciiName;
+    private String getSignType(IWirelessPoint point) {
+        if (point instanceof WirelessTransmitter) {
+            return "transmitter";
+        } else if (point instanceof WirelessScreen) {
+            return "screen";
+        } else if (point instanceof WirelessReceiver) {
+            if (point instanceof WirelessReceiverInverter) return "receiver_inverter";
+            else if (point instanceof WirelessReceiverDelayer)
+                return "receiver_delayer_" + ((WirelessReceiverDelayer) (point)).getDelay();
+            else if (point instanceof WirelessReceiverSwitch) {
+                return "receiver_switch_" + ((WirelessReceiverSwitch) (point)).getState();
+            } else if (point instanceof WirelessReceiverClock)
+                return "receiver_clock_" + ((WirelessReceiverClock) (point)).getDelay();
+            else return "receiver";
         }
-        for (char character : WirelessRedstone.getUtils().badCharacters) {
-            String ascii = "" + (int) character;
-            String code = "_char_" + ascii + "_";
-            if (asciiName.contains(code)) {
-                asciiName = asciiName.replace(code, String.valueOf(character));
-            }
+        return null;
+    }
+
+    private String joinOwners(List<String> owners) {
+        StringBuilder sb = new StringBuilder();
+        for (String owner : owners) {
+            if (sb.length() > 0)
+                sb.append(",");
+            sb.append(owner);
         }
-        return asciiName;
+        return sb.toString();
+    }
+
+    private boolean removeWirelessReceiver(String channelName, Location loc, String world) {
+        return removeWirelessPoint(channelName, loc, world);
+    }
+
+    private boolean removeWirelessTransmitter(String channelName, Location loc, String world) {
+        return removeWirelessPoint(channelName, loc, world);
+    }
+
+    private boolean removeWirelessScreen(String channelName, Location loc, String world) {
+        return removeWirelessPoint(channelName, loc, world);
     }
 
     private String getLastBackup() {
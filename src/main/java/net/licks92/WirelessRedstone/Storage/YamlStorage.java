@@ -1,6 +1,7 @@
 package net.licks92.WirelessRedstone.Storage;
 
 import net.licks92.WirelessRedstone.ConfigManager;
+import net.licks92.WirelessRedstone.GlobalCache;
 import net.licks92.WirelessRedstone.Signs.*;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 import org.bukkit.Bukkit;
@@ -51,14 +52,19 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
     @Override
     public boolean createWirelessChannel(WirelessChannel channel) {
-        setWirelessChannel(channel.getName(), channel, true);
+        setWirelessChannel(channel.getName(), channel);
 
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().addChannel(channel);
         return true;
     }
 
     @Override
     public boolean createWirelessPoint(String channelName, IWirelessPoint point) {
         WirelessChannel channel = getWirelessChannel(channelName, true);
+        if (channel == null)
+            return false;
+
         if (point instanceof WirelessReceiver) {
             WirelessRedstone.getWRLogger().debug("Yaml config: Creating a receiver of class "
                     + point.getClass());
@@ -82,67 +88,48 @@ public class YamlStorage implements IWirelessStorageConfiguration {
             channel.addTransmitter((WirelessTransmitter) point);
         else if (point instanceof WirelessScreen)
             channel.addScreen((WirelessScreen) point);
-        setWirelessChannel(channelName, channel, true);
+        setWirelessChannel(channelName, channel);
 
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().addPoint(channelName, point);
         return true;
     }
 
     @Override
     public boolean removeIWirelessPoint(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel == null)
+        if (!channelName.equalsIgnoreCase(getWirelessChannelName(loc)))
             return false;
-        for (WirelessReceiver receiver : channel.getReceivers()) {
-            if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc))
-                return removeWirelessReceiver(channelName, loc);
-        }
-        for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-            if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc))
-                return removeWirelessTransmitter(channelName, loc);
-        }
-        for (WirelessScreen screen : channel.getScreens()) {
-            if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc))
-                return removeWirelessScreen(channelName, loc);
-        }
+
+        IWirelessPoint point = getWirelessRedstoneSign(loc);
+        if (point instanceof WirelessReceiver)
+            return removeWirelessReceiver(channelName, loc);
+        else if (point instanceof WirelessTransmitter)
+            return removeWirelessTransmitter(channelName, loc);
+        else if (point instanceof WirelessScreen)
+            return removeWirelessScreen(channelName, loc);
         return false;
     }
 
     @Override
     public boolean removeWirelessReceiver(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeReceiverAt(loc);
-            updateChannel(channelName, channel);
-            return true;
-        } else
-            return false;
+        return removeWirelessReceiver(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean removeWirelessTransmitter(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeTransmitterAt(loc);
-            updateChannel(channelName, channel);
-            return true;
-        } else
-            return false;
+        return removeWirelessTransmitter(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean removeWirelessScreen(String channelName, Location loc) {
-        WirelessChannel channel = getWirelessChannel(channelName, true);
-        if (channel != null) {
-            channel.removeScreenAt(loc);
-            updateChannel(channelName, channel);
-            return true;
-        } else
-            return false;
+        return removeWirelessScreen(channelName, loc, loc.getWorld().getName());
     }
 
     @Override
     public boolean renameWirelessChannel(String channelName, String newChannelName) {
         WirelessChannel channel = getWirelessChannel(channelName, true);
+        if (channel == null)
+            return false;
 
         List<IWirelessPoint> signs = new ArrayList<IWirelessPoint>();
 
@@ -152,22 +139,28 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
         for (IWirelessPoint sign : signs) {
             Location loc = new Location(Bukkit.getWorld(sign.getWorld()), sign.getX(), sign.getY(), sign.getZ());
-            Sign signBlock = (Sign) loc.getBlock();
+            if (!(loc.getBlock().getState() instanceof Sign))
+                continue;
+            Sign signBlock = (Sign) loc.getBlock().getState();
             signBlock.setLine(1, newChannelName);
+            signBlock.update();
         }
 
         //Remove the old channel in the config
-        setWirelessChannel(channelName, null, true);
+        setWirelessChannel(channelName, null);
 
         for (File f : channelFolder.listFiles()) {
-            if (f.getName().equals(channelName)) {
+            if (f.getName().equals(channelName + ".yml")) {
                 f.delete();
             }
         }
 
         //Set a new channel
-        createWirelessChannel(channel);
+        channel.setName(newChannelName);
+        setWirelessChannel(newChannelName, channel);
 
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().renameChannel(channelName, newChannelName);
         return true;
     }
 
@@ -184,13 +177,16 @@ public class YamlStorage implements IWirelessStorageConfiguration {
         for (File file : channelFolder.listFiles()) {
             String name = file.getName();
             int pos = name.lastIndexOf(".");
-            setWirelessChannel(name.substring(0, pos), null, true);
+            setWirelessChannel(name.substring(0, pos), null);
             files.add(file);
         }
 
         for (File file : files) {
             file.delete();
         }
+
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().update();
         return true;
     }
 
@@ -422,17 +418,8 @@ public class YamlStorage implements IWirelessStorageConfiguration {
     public WirelessChannel getWirelessChannel(String channelName, Boolean forceUpdate) {
         if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && !forceUpdate) {
             if (WirelessRedstone.getGlobalCache().getAllChannels() != null) {
-                WirelessChannel channel = null;
-
-                for (WirelessChannel cacheChannel : WirelessRedstone.getGlobalCache().getAllChannels()) {
-                    if (cacheChannel.getName().equalsIgnoreCase(channelName)) {
-                        channel = cacheChannel;
-                        break;
-                    }
-                }
-
 //                WirelessRedstone.getWRLogger().debug("Accessed WirelessChannel from cache");
-                return channel;
+                return WirelessRedstone.getGlobalCache().getWirelessChannel(channelName);
             }
         }
 
@@ -459,17 +446,20 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
     @Override
     public IWirelessPoint getWirelessRedstoneSign(Location loc) {
+        if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && WirelessRedstone.getGlobalCache().getAllChannels() != null)
+            return WirelessRedstone.getGlobalCache().getWirelessPoint(loc);
+
         for (WirelessChannel channel : getAllChannels()) {
             for (WirelessReceiver receiver : channel.getReceivers()) {
-                if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(receiver, loc))
                     return receiver;
             }
             for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-                if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(transmitter, loc))
                     return transmitter;
             }
             for (WirelessScreen screen : channel.getScreens()) {
-                if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(screen, loc))
                     return screen;
             }
         }
@@ -478,17 +468,22 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
     @Override
     public String getWirelessChannelName(Location loc) {
+        if (useGlobalCache && WirelessRedstone.getGlobalCache() != null && WirelessRedstone.getGlobalCache().getAllChannels() != null) {
+            WirelessChannel channel = WirelessRedstone.getGlobalCache().getWirelessChannel(loc);
+            return channel != null ? channel.getName() : null;
+        }
+
         for (WirelessChannel channel : getAllChannels()) {
             for (WirelessReceiver receiver : channel.getReceivers()) {
-                if (WirelessRedstone.getUtils().sameLocation(receiver.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(receiver, loc))
                     return channel.getName();
             }
             for (WirelessTransmitter transmitter : channel.getTransmitters()) {
-                if (WirelessRedstone.getUtils().sameLocation(transmitter.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(transmitter, loc))
                     return channel.getName();
             }
             for (WirelessScreen screen : channel.getScreens()) {
-                if (WirelessRedstone.getUtils().sameLocation(screen.getLocation(), loc))
+                if (WirelessRedstone.getUtils().sameLocation(screen, loc))
                     return channel.getName();
             }
         }
@@ -497,11 +492,14 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
     @Override
     public void updateChannel(String channelName, WirelessChannel channel) {
-        setWirelessChannel(channelName, channel, true);
+        updateChannel(channelName, channel, true);
     }
 
     private void updateChannel(String channelName, WirelessChannel channel, boolean updateCache) {
-        setWirelessChannel(channelName, channel, updateCache);
+        setWirelessChannel(channelName, channel);
+
+        if (updateCache && WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().updateChannel(channelName, channel);
     }
 
     @Override
@@ -511,6 +509,27 @@ public class YamlStorage implements IWirelessStorageConfiguration {
         }
     }
 
+    @Override
+    public void updateSwitchStates(Collection<WirelessReceiverSwitch> receivers) {
+        if (WirelessRedstone.getGlobalCache() == null || WirelessRedstone.getGlobalCache().getAllChannels() == null) {
+            updateReceivers();
+            return;
+        }
+
+        // Every channel file is written once, no matter how many of its switches changed
+        Map<String, WirelessChannel> channels = new LinkedHashMap<>();
+        for (WirelessReceiverSwitch receiver : receivers) {
+            GlobalCache.CachedPoint cachedPoint = WirelessRedstone.getGlobalCache().getCachedPoint(receiver.getWorld(),
+                    receiver.getX(), receiver.getY(), receiver.getZ());
+            if (cachedPoint != null)
+                channels.put(cachedPoint.getChannel().getName(), cachedPoint.getChannel());
+        }
+
+        for (WirelessChannel channel : channels.values()) {
+            updateChannel(channel.getName(), channel, false);
+        }
+    }
+
     @Override
     public void checkChannel(String channelName) {
         WirelessChannel channel = getWirelessChannel(channelName);
@@ -522,13 +541,16 @@ public class YamlStorage implements IWirelessStorageConfiguration {
 
     @Override
     public void removeWirelessChannel(String channelName) {
-        WirelessRedstone.getSignManager().removeSigns(getWirelessChannel(channelName, true));
-        setWirelessChannel(channelName, null, true);
+        WirelessRedstone.getSignManager().removeSigns(getWirelessChannel(channelName));
+        setWirelessChannel(channelName, null);
         for (File f : channelFolder.listFiles()) {
             if (f.getName().equals(channelName + ".yml")) {
                 f.delete();
             }
         }
+
+        if (WirelessRedstone.getGlobalCache() != null)
+            WirelessRedstone.getGlobalCache().removeChannel(channelName);
         WirelessRedstone.getWRLogger().debug("Channel " + channelName + " successfully removed and file deleted.");
     }
 
@@ -592,7 +614,7 @@ public class YamlStorage implements IWirelessStorageConfiguration {
         return true;
     }
 
-    private void setWirelessChannel(String channelName, WirelessChannel channel, boolean updateCache) {
+    private void setWirelessChannel(String channelName, WirelessChannel channel) {
         FileConfiguration channelConfig = new YamlConfiguration();
         try {
             File channelFile = new File(channelFolder, channelName + ".yml");
@@ -614,53 +636,42 @@ public class YamlStorage implements IWirelessStorageConfiguration {
         } catch (IOException e) {
             e.printStackTrace();
         }
-
-        if (updateCache) {
-            if (WirelessRedstone.getGlobalCache() == null)
-                Bukkit.getScheduler().runTaskLater(WirelessRedstone.getInstance(), new Runnable() {
-                    @Override
-                    public void run() {
-                        WirelessRedstone.getGlobalCache().update();
-                    }
-                }, 1L);
-            else WirelessRedstone.getGlobalCache().update();
-        }
     }
 
-    /**
-     * Private method to purge data. Don't use it anywhere else
-     */
     private boolean removeWirelessReceiver(String channelName, Location loc, String world) {
         WirelessChannel channel = getWirelessChannel(channelName, true);
         if (channel != null) {
             channel.removeReceiverAt(loc, world);
-            updateChannel(channelName, channel);
+            updateChannel(channelName, channel, false);
+
+            if (WirelessRedstone.getGlobalCache() != null)
+                WirelessRedstone.getGlobalCache().removePoint(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
             return true;
         } else
             return false;
     }
 
-    /**
-     * Private method to purge data. Don't use it anywhere else
-     */
     private boolean removeWirelessTransmitter(String channelName, Location loc, String world) {
         WirelessChannel channel = getWirelessChannel(channelName, true);
         if (channel != null) {
             channel.removeTransmitterAt(loc, world);
-            updateChannel(channelName, channel);
+            updateChannel(channelName, channel, false);
+
+            if (WirelessRedstone.getGlobalCache() != null)
+                WirelessRedstone.getGlobalCache().removePoint(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
             return true;
         } else
             return false;
     }
 
-    /**
-     * Private method to purge data. Don't use it anywhere else
-     */
     private boolean removeWirelessScreen(String channelName, Location loc, String world) {
         WirelessChannel channel = getWirelessChannel(channelName, true);
         if (channel != null) {
             channel.removeScreenAt(loc, world);
-            updateChannel(channelName, channel);
+            updateChannel(channelName, channel, false);
+
+            if (WirelessRedstone.getGlobalCache() != null)
+                WirelessRedstone.getGlobalCache().removePoint(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
             return true;
         } else
             return false;
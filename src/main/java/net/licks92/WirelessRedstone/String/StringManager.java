@@ -1,6 +1,7 @@
 package net.licks92.WirelessRedstone.String;
 
 import com.google.gson.Gson;
+import net.licks92.WirelessRedstone.Signs.SignType;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 
 import java.io.InputStream;
@@ -8,7 +9,9 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 
 public class StringManager {
 
@@ -24,6 +27,10 @@ public class StringManager {
     public List<String> tagsReceiverClockType;
     public List<String> tagsReceiverSwitchType;
 
+    // Lower case tag to the type it stands for, for the first line and the receiver type line of a sign
+    private final HashMap<String, SignType> signTags = new HashMap<>();
+    private final HashMap<String, SignType> receiverTypeTags = new HashMap<>();
+
     public StringManager(String language) {
         tagsTransmitter = new ArrayList<String>();
         tagsReceiver = new ArrayList<String>();
@@ -59,6 +66,15 @@ public class StringManager {
         tagsReceiverSwitchType.add("[switch]");
         tagsReceiverSwitchType.add("[switcher]");
 
+        addTags(signTags, tagsTransmitter, SignType.TRANSMITTER);
+        addTags(signTags, tagsScreen, SignType.SCREEN);
+        addTags(signTags, tagsReceiver, SignType.RECEIVER);
+        addTags(receiverTypeTags, tagsReceiverDefaultType, SignType.RECEIVER_NORMAL);
+        addTags(receiverTypeTags, tagsReceiverInverterType, SignType.RECEIVER_INVERTER);
+        addTags(receiverTypeTags, tagsReceiverDelayerType, SignType.RECEIVER_DELAYER);
+        addTags(receiverTypeTags, tagsReceiverClockType, SignType.RECEIVER_CLOCK);
+        addTags(receiverTypeTags, tagsReceiverSwitchType, SignType.RECEIVER_SWITCH);
+
         WirelessRedstone plugin = WirelessRedstone.getInstance();
 
         InputStream stream = plugin.getResource(stringFolder + "strings_" + language + ".json");
@@ -82,4 +98,24 @@ public class StringManager {
         return strings;
     }
 
+    /**
+     * @return TRANSMITTER, SCREEN or RECEIVER if the line is one of their tags, ignoring case, otherwise null
+     */
+    public SignType getSignTag(String line) {
+        return line == null ? null : signTags.get(line.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return the receiver type if the line is one of the receiver type tags, ignoring case, otherwise null
+     */
+    public SignType getReceiverTypeTag(String line) {
+        return line == null ? null : receiverTypeTags.get(line.toLowerCase(Locale.ENGLISH));
+    }
+
+    private void addTags(HashMap<String, SignType> map, List<String> tags, SignType type) {
+        for (String tag : tags) {
+            map.put(tag.toLowerCase(Locale.ENGLISH), type);
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+package net.licks92.WirelessRedstone;
+
+import net.licks92.WirelessRedstone.Libs.LongObjectHashMap;
+import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverSwitch;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps the state of the switch receivers, keyed by world and packed block coordinates. Switches that changed are
+ * written to the storage every second, so their state survives a crash and not only a clean shutdown.
+ */
+public class SwitchStateStore {
+
+    private static final long FLUSH_INTERVAL = 20L;
+
+    private final HashMap<String, LongObjectHashMap<Boolean>> states = new HashMap<>();
+    private final HashMap<String, LongObjectHashMap<WirelessReceiverSwitch>> dirty = new HashMap<>();
+    private int dirtyCount = 0;
+    private BukkitTask task = null;
+
+    /**
+     * @return the state of the switch at this point, null if it hasn't been toggled since the plugin was started
+     */
+    public Boolean get(IWirelessPoint point) {
+        LongObjectHashMap<Boolean> worldStates = states.get(point.getWorld());
+        if (worldStates == null)
+            return null;
+
+        return worldStates.get(getKey(point));
+    }
+
+    /**
+     * Change the state of a switch, it's written to the storage with the next flush.
+     */
+    public void set(WirelessReceiverSwitch receiver, boolean state) {
+        long key = getKey(receiver);
+        LongObjectHashMap<Boolean> worldStates = states.get(receiver.getWorld());
+        if (worldStates == null) {
+            worldStates = new LongObjectHashMap<>();
+            states.put(receiver.getWorld(), worldStates);
+        }
+
+        Boolean previous = worldStates.put(key, state);
+        if (previous != null && previous == state)
+            return;
+
+        LongObjectHashMap<WirelessReceiverSwitch> worldDirty = dirty.get(receiver.getWorld());
+        if (worldDirty == null) {
+            worldDirty = new LongObjectHashMap<>();
+            dirty.put(receiver.getWorld(), worldDirty);
+        }
+        if (worldDirty.put(key, receiver) == null)
+            dirtyCount++;
+
+        if (task == null)
+            startTask();
+    }
+
+    /**
+     * Forget the state of a switch that has been removed, a new switch at the same block starts with its own state.
+     */
+    public void remove(IWirelessPoint point) {
+        long key = getKey(point);
+        LongObjectHashMap<Boolean> worldStates = states.get(point.getWorld());
+        if (worldStates != null) {
+            worldStates.remove(key);
+            if (worldStates.isEmpty())
+                states.remove(point.getWorld());
+        }
+
+        LongObjectHashMap<WirelessReceiverSwitch> worldDirty = dirty.get(point.getWorld());
+        if (worldDirty != null && worldDirty.remove(key) != null) {
+            dirtyCount--;
+            if (worldDirty.isEmpty())
+                dirty.remove(point.getWorld());
+        }
+    }
+
+    /**
+     * Write all the changed switches to the storage now.
+     */
+    public void flush() {
+        if (dirtyCount == 0) {
+            stopTask();
+            return;
+        }
+
+        List<WirelessReceiverSwitch> receivers = new ArrayList<>(dirtyCount);
+        for (LongObjectHashMap<WirelessReceiverSwitch> worldDirty : dirty.values()) {
+            receivers.addAll(worldDirty.values());
+        }
+        dirty.clear();
+        dirtyCount = 0;
+
+        try {
+            WirelessRedstone.getStorage().updateSwitchStates(receivers);
+        } catch (RuntimeException e) {
+            WirelessRedstone.getWRLogger().severe("Error while saving the state of " + receivers.size()
+                    + " switches. Please turn the debug mode on to get more informations.");
+
+            if (ConfigManager.getConfig().getDebugMode())
+                e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the amount of switches waiting to be written to the storage
+     */
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    private long getKey(IWirelessPoint point) {
+        return WirelessRedstone.getUtils().getBlockKey(point.getX(), point.getY(), point.getZ());
+    }
+
+    private void startTask() {
+        task = Bukkit.getScheduler().runTaskTimer(WirelessRedstone.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL, FLUSH_INTERVAL);
+    }
+
+    private void stopTask() {
+        if (task == null)
+            return;
+
+        task.cancel();
+        task = null;
+    }
+}
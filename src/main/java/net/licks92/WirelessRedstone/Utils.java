@@ -1,25 +1,40 @@
 package net.licks92.WirelessRedstone;
 
+import net.licks92.WirelessRedstone.Scheduler.ChunkPreloader;
 import net.licks92.WirelessRedstone.Signs.IWirelessPoint;
 import net.licks92.WirelessRedstone.Signs.SignType;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.Sign;
 import org.bukkit.command.CommandSender;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class Utils {
 
+    // Blocks a torch can't be placed on
+    private static final Set<Material> UNSUPPORTED_FLOOR = EnumSet.of(Material.AIR, Material.PISTON_BASE,
+            Material.PISTON_EXTENSION, Material.PISTON_MOVING_PIECE, Material.PISTON_STICKY_BASE, Material.GLOWSTONE,
+            Material.REDSTONE_LAMP_ON, Material.REDSTONE_LAMP_OFF, Material.LEAVES, Material.TNT, Material.SEA_LANTERN);
+    // Blocks a torch can't be attached to
+    private static final Set<Material> UNSUPPORTED_WALL = EnumSet.of(Material.AIR, Material.PISTON_BASE,
+            Material.PISTON_EXTENSION, Material.PISTON_MOVING_PIECE, Material.PISTON_STICKY_BASE, Material.GLOWSTONE,
+            Material.REDSTONE_LAMP_ON, Material.REDSTONE_LAMP_OFF, Material.LEAVES, Material.WOOD_STAIRS,
+            Material.COBBLESTONE_STAIRS, Material.RED_SANDSTONE_STAIRS, Material.SANDSTONE_STAIRS, Material.FENCE,
+            Material.ACACIA_FENCE, Material.DARK_OAK_FENCE, Material.JUNGLE_FENCE, Material.BIRCH_FENCE,
+            Material.WOOD_DOOR, Material.WOODEN_DOOR, Material.IRON_DOOR_BLOCK, Material.IRON_DOOR, Material.GLASS,
+            Material.THIN_GLASS, Material.STAINED_GLASS, Material.STAINED_GLASS_PANE, Material.COBBLE_WALL,
+            Material.ICE, Material.WOOD_STEP, Material.STEP, Material.TNT, Material.SEA_LANTERN);
+
     //Currently blocking all bad characters from EVERY config
     public char[] badCharacters = {'|', '-', '*', '/', '<', '>', ' ', '=', '~',
             '!', '^', '(', ')', ':', '`', '.'};
@@ -34,6 +49,25 @@ public class Utils {
                 && loc1.getBlockZ() == loc2.getBlockZ() && loc1.getWorld() == loc2.getWorld();
     }
 
+    public boolean sameLocation(IWirelessPoint point, Location loc) {
+        return point.getX() == loc.getBlockX() && point.getY() == loc.getBlockY() && point.getZ() == loc.getBlockZ()
+                && loc.getWorld() != null && loc.getWorld().getName().equals(point.getWorld());
+    }
+
+    /**
+     * Pack block coordinates into one long. X and z use 26 bits, y uses 12 bits.
+     */
+    public long getBlockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (long) (y & 0xFFF);
+    }
+
+    /**
+     * Pack chunk coordinates into one long.
+     */
+    public long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | ((long) chunkZ & 0xFFFFFFFFL);
+    }
+
     public boolean isCompatible() {
         try {
             String[] pieces = getBukkitVersion().substring(1).split("_");
@@ -191,67 +225,31 @@ public class Utils {
         }
     }
 
+    /**
+     * @return true if the block already has this type and data, setting it again would only cause a physics update
+     */
+    public boolean hasTypeIdAndData(Block block, int typeId, byte data) {
+        return block.getTypeId() == typeId && block.getData() == data;
+    }
+
     public boolean isValidWallLocation(Block block) {
         org.bukkit.material.Sign sign = (org.bukkit.material.Sign) block
                 .getState().getData();
         BlockFace face = sign.getAttachedFace();
-        Block tempBlock = block.getRelative(face);
-
-        return !(tempBlock.getType() == Material.AIR
-                || tempBlock.getType() == Material.PISTON_BASE
-                || tempBlock.getType() == Material.PISTON_EXTENSION
-                || tempBlock.getType() == Material.PISTON_MOVING_PIECE
-                || tempBlock.getType() == Material.PISTON_STICKY_BASE
-                || tempBlock.getType() == Material.GLOWSTONE
-                || tempBlock.getType() == Material.REDSTONE_LAMP_ON
-                || tempBlock.getType() == Material.REDSTONE_LAMP_OFF
-                || tempBlock.getType() == Material.LEAVES
-                || tempBlock.getType() == Material.WOOD_STAIRS
-                || tempBlock.getType() == Material.COBBLESTONE_STAIRS
-                || tempBlock.getType() == Material.RED_SANDSTONE_STAIRS
-                || tempBlock.getType() == Material.SANDSTONE_STAIRS
-                || tempBlock.getType() == Material.FENCE
-                || tempBlock.getType() == Material.ACACIA_FENCE
-                || tempBlock.getType() == Material.DARK_OAK_FENCE
-                || tempBlock.getType() == Material.JUNGLE_FENCE
-                || tempBlock.getType() == Material.BIRCH_FENCE
-                || tempBlock.getType() == Material.WOOD_DOOR
-                || tempBlock.getType() == Material.WOODEN_DOOR
-                || tempBlock.getType() == Material.IRON_DOOR_BLOCK
-                || tempBlock.getType() == Material.IRON_DOOR
-                || tempBlock.getType() == Material.GLASS
-                || tempBlock.getType() == Material.THIN_GLASS
-                || tempBlock.getType() == Material.STAINED_GLASS
-                || tempBlock.getType() == Material.STAINED_GLASS_PANE
-                || tempBlock.getType() == Material.COBBLE_WALL
-                || tempBlock.getType() == Material.ICE
-                || tempBlock.getType() == Material.WOOD_STEP
-                || tempBlock.getType() == Material.STEP
-                || tempBlock.getType() == Material.TNT
-                || tempBlock.getType() == Material.SEA_LANTERN
-                || (tempBlock.getTypeId() >= 219 && tempBlock.getTypeId() <= 234) //We could use Material but we need to specify every color
-        );
+        return !isUnsupported(block.getRelative(face), UNSUPPORTED_WALL);
     }
 
     public boolean isValidLocation(Block block) {
         if (block == null)
             return false;
 
-        Block tempBlock = block.getRelative(BlockFace.DOWN);
-
-        return !(tempBlock.getType() == Material.AIR
-                || tempBlock.getType() == Material.PISTON_BASE
-                || tempBlock.getType() == Material.PISTON_EXTENSION
-                || tempBlock.getType() == Material.PISTON_MOVING_PIECE
-                || tempBlock.getType() == Material.PISTON_STICKY_BASE
-                || tempBlock.getType() == Material.GLOWSTONE
-                || tempBlock.getType() == Material.REDSTONE_LAMP_ON
-                || tempBlock.getType() == Material.REDSTONE_LAMP_OFF
-                || tempBlock.getType() == Material.LEAVES
-                || tempBlock.getType() == Material.TNT
-                || tempBlock.getType() == Material.SEA_LANTERN
-                || (tempBlock.getTypeId() >= 219 && tempBlock.getTypeId() <= 234) //We could use Material but we need to specify every color
-        );
+        return !isUnsupported(block.getRelative(BlockFace.DOWN), UNSUPPORTED_FLOOR);
+    }
+
+    private boolean isUnsupported(Block block, Set<Material> unsupported) {
+        int typeId = block.getTypeId();
+        //We could use Material for 219-234 but we need to specify every color
+        return (typeId >= 219 && typeId <= 234) || unsupported.contains(block.getType());
     }
 
     public void signWarning(Block block, Integer code) {
@@ -289,22 +287,7 @@ public class Utils {
 
     public void loadChunks() {
         if (ConfigManager.getConfig().getCancelChunkUnload()) {
-            for (IWirelessPoint point : WirelessRedstone.getGlobalCache().getAllSigns()) {
-                Location location = point.getLocation();
-                if (location.getWorld() == null)
-                    continue; // world currently not loaded.
-
-                Chunk center = location.getBlock().getChunk();
-                World world = center.getWorld();
-                int range = ConfigManager.getConfig().getCancelChunkUnloadRange();
-                for (int dx = -(range); dx <= range; dx++) {
-                    for (int dz = -(range); dz <= range; dz++) {
-                        Chunk chunk = world.getChunkAt(center.getX() + dx,
-                                center.getZ() + dz);
-                        world.loadChunk(chunk);
-                    }
-                }
-            }
+            new ChunkPreloader(WirelessRedstone.getGlobalCache().getAllSigns()).start();
         }
     }
 
@@ -5,6 +5,13 @@ import net.licks92.WirelessRedstone.Commands.CommandManager;
 import net.licks92.WirelessRedstone.Listeners.BlockListener;
 import net.licks92.WirelessRedstone.Listeners.PlayerListener;
 import net.licks92.WirelessRedstone.Listeners.WorldListener;
+import net.licks92.WirelessRedstone.Scheduler.ChannelToggleCoalescer;
+import net.licks92.WirelessRedstone.Scheduler.ClockScheduler;
+import net.licks92.WirelessRedstone.Scheduler.DeferredReceiverUpdates;
+import net.licks92.WirelessRedstone.Scheduler.DelayQueue;
+import net.licks92.WirelessRedstone.Scheduler.ReceiverUpdateExecutor;
+import net.licks92.WirelessRedstone.Scheduler.RedstonePropagationQueue;
+import net.licks92.WirelessRedstone.Scheduler.ScreenRefresher;
 import net.licks92.WirelessRedstone.Signs.WirelessChannel;
 import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
 import net.licks92.WirelessRedstone.Storage.IWirelessStorageConfiguration;
@@ -25,6 +32,14 @@ public class WirelessRedstone extends JavaPlugin {
     private static Utils utils;
     private static GlobalCache globalCache; //GlobalCache -> Manage global cache, SignManager -> Manage WireBox functions
     private static SignManager signManager;
+    private static SwitchStateStore switchStateStore;
+    private static ClockScheduler clockScheduler;
+    private static DelayQueue delayQueue;
+    private static ReceiverUpdateExecutor receiverUpdateExecutor;
+    private static DeferredReceiverUpdates deferredReceiverUpdates;
+    private static RedstonePropagationQueue redstonePropagationQueue;
+    private static ChannelToggleCoalescer channelToggleCoalescer;
+    private static ScreenRefresher screenRefresher;
     private static WRLogger WRLogger;
     private static StringManager stringManager;
     private static StorageManager storageManager;
@@ -53,6 +68,38 @@ public class WirelessRedstone extends JavaPlugin {
         return signManager;
     }
 
+    public static SwitchStateStore getSwitchStateStore() {
+        return switchStateStore;
+    }
+
+    public static ClockScheduler getClockScheduler() {
+        return clockScheduler;
+    }
+
+    public static DelayQueue getDelayQueue() {
+        return delayQueue;
+    }
+
+    public static ReceiverUpdateExecutor getReceiverUpdateExecutor() {
+        return receiverUpdateExecutor;
+    }
+
+    public static DeferredReceiverUpdates getDeferredReceiverUpdates() {
+        return deferredReceiverUpdates;
+    }
+
+    public static RedstonePropagationQueue getRedstonePropagationQueue() {
+        return redstonePropagationQueue;
+    }
+
+    public static ChannelToggleCoalescer getChannelToggleCoalescer() {
+        return channelToggleCoalescer;
+    }
+
+    public static ScreenRefresher getScreenRefresher() {
+        return screenRefresher;
+    }
+
     public static WRLogger getWRLogger() {
         return WRLogger;
     }
@@ -104,7 +151,12 @@ public class WirelessRedstone extends JavaPlugin {
         if (fullyStarted) {
             try {
                 WirelessRedstone.getSignManager().stopAllClocks();
-                WirelessRedstone.getStorage().updateReceivers();
+                WirelessRedstone.getDelayQueue().clear();
+                WirelessRedstone.getChannelToggleCoalescer().flush();
+                WirelessRedstone.getReceiverUpdateExecutor().flush();
+                WirelessRedstone.getScreenRefresher().flush();
+                WirelessRedstone.getDeferredReceiverUpdates().flush();
+                WirelessRedstone.getSwitchStateStore().flush();
                 storageManager.getStorage().close();
             } catch (Exception ex) {
                 WRLogger.severe("An error occured when disabling the plugin!");
@@ -122,6 +174,14 @@ public class WirelessRedstone extends JavaPlugin {
         WRLogger = null;
         globalCache = null;
         signManager = null;
+        switchStateStore = null;
+        clockScheduler = null;
+        delayQueue = null;
+        receiverUpdateExecutor = null;
+        deferredReceiverUpdates = null;
+        redstonePropagationQueue = null;
+        channelToggleCoalescer = null;
+        screenRefresher = null;
         storageManager = null;
         utils = null;
         instance = null;
@@ -149,6 +209,14 @@ public class WirelessRedstone extends JavaPlugin {
 
         stringManager = new StringManager(config.getLanguage());
         signManager = new SignManager();
+        switchStateStore = new SwitchStateStore();
+        clockScheduler = new ClockScheduler();
+        delayQueue = new DelayQueue();
+        receiverUpdateExecutor = new ReceiverUpdateExecutor();
+        deferredReceiverUpdates = new DeferredReceiverUpdates();
+        redstonePropagationQueue = new RedstonePropagationQueue();
+        channelToggleCoalescer = new ChannelToggleCoalescer();
+        screenRefresher = new ScreenRefresher();
         storageManager = new StorageManager(config.getStorageType(), CHANNEL_FOLDER);
 
         if (!storageManager.getStorage().initStorage()) {
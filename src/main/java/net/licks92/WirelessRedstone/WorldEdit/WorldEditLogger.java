@@ -7,9 +7,9 @@ import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.logging.AbstractLoggingExtent;
 import com.sk89q.worldedit.world.World;
+import net.licks92.WirelessRedstone.GlobalCache;
 import net.licks92.WirelessRedstone.WirelessRedstone;
 import org.bukkit.Location;
-import org.bukkit.block.Block;
 
 public class WorldEditLogger extends AbstractLoggingExtent {
     private final Actor eventActor;
@@ -31,21 +31,21 @@ public class WorldEditLogger extends AbstractLoggingExtent {
         if (world == null || position == null)
             return;
 
-        Block block = world.getBlockAt(position.getBlockX(), position.getBlockY(), position.getBlockZ());
-
         if (WirelessRedstone.getGlobalCache() == null)
             return;
 
-        for (Location loc : WirelessRedstone.getGlobalCache().getAllSignLocations()) {
-            if (WirelessRedstone.getUtils().sameLocation(loc, block.getLocation())) {
-                String channelName = WirelessRedstone.getStorage().getWirelessChannelName(loc);
-                if (WirelessRedstone.getStorage().removeIWirelessPoint(channelName, loc)) {
-                    WirelessRedstone.getStorage().checkChannel(channelName);
-                    WirelessRedstone.getWRLogger().debug("Removed sign because of WorldEdit");
-                } else {
-                    WirelessRedstone.getWRLogger().debug("Couldn't remove sign. WorldEdit was the remover");
-                }
-            }
+        GlobalCache.CachedPoint cachedPoint = WirelessRedstone.getGlobalCache().getCachedPoint(world.getName(),
+                position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        if (cachedPoint == null)
+            return;
+
+        Location loc = new Location(world, position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        String channelName = cachedPoint.getChannel().getName();
+        if (WirelessRedstone.getStorage().removeIWirelessPoint(channelName, loc)) {
+            WirelessRedstone.getStorage().checkChannel(channelName);
+            WirelessRedstone.getWRLogger().debug("Removed sign because of WorldEdit");
+        } else {
+            WirelessRedstone.getWRLogger().debug("Couldn't remove sign. WorldEdit was the remover");
         }
     }
 }
@@ -0,0 +1,133 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+    @Test
+    public void addAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+
+        assertTrue(set.add(7));
+        assertTrue(set.add(0));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(7));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertFalse(set.contains(8));
+    }
+
+    @Test
+    public void keyStaysUntilRemovedAsOftenAsAdded() {
+        LongHashSet set = new LongHashSet();
+        set.add(5);
+        set.add(5);
+        set.add(5);
+
+        assertFalse(set.remove(5));
+        assertFalse(set.remove(5));
+        assertTrue(set.contains(5));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(5));
+        assertFalse(set.contains(5));
+        assertTrue(set.isEmpty());
+
+        // Removing a key that isn't there doesn't change anything
+        assertFalse(set.remove(5));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void overlappingAreasCanBeRemovedIndependently() {
+        LongHashSet set = new LongHashSet();
+        for (long key = 0; key < 100; key++) {
+            set.add(key);
+        }
+        for (long key = 50; key < 150; key++) {
+            set.add(key);
+        }
+        for (long key = 0; key < 100; key++) {
+            set.remove(key);
+        }
+
+        assertEquals(100, set.size());
+        for (long key = 0; key < 150; key++) {
+            assertEquals(key >= 50, set.contains(key));
+        }
+    }
+
+    @Test
+    public void matchesCountingMapUnderRandomChanges() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet(2);
+        Map<Long, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(400) - 200;
+            Integer count = counts.get(key);
+            if (random.nextBoolean()) {
+                assertEquals(count == null, set.add(key));
+                counts.put(key, count == null ? 1 : count + 1);
+            } else {
+                boolean gone = count != null && count == 1;
+                assertEquals(gone, set.remove(key));
+                if (gone)
+                    counts.remove(key);
+                else if (count != null)
+                    counts.put(key, count - 1);
+            }
+            assertEquals(counts.size(), set.size());
+        }
+
+        for (long key = -200; key < 200; key++) {
+            assertEquals(counts.containsKey(key), set.contains(key));
+        }
+    }
+
+    @Test
+    public void copyKeepsCountsAndIsIndependent() {
+        LongHashSet set = new LongHashSet();
+        set.add(1);
+        set.add(1);
+        set.add(2);
+
+        LongHashSet copy = set.copy();
+        copy.remove(1);
+        copy.remove(2);
+        set.add(3);
+
+        assertTrue(copy.contains(1));
+        assertFalse(copy.contains(2));
+        assertFalse(copy.contains(3));
+        assertTrue(set.contains(2));
+        assertTrue(copy.remove(1));
+    }
+
+    @Test
+    public void toArrayContainsEveryKeyOnce() {
+        LongHashSet set = new LongHashSet();
+        set.add(3);
+        set.add(1);
+        set.add(1);
+        set.add(2);
+
+        long[] keys = set.toArray();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{1, 2, 3}, keys);
+    }
+}
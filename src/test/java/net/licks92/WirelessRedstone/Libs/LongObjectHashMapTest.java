@@ -0,0 +1,129 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void putGetAndReplace() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-5, "negative"));
+        assertEquals("a", map.put(1, "b"));
+
+        assertEquals(3, map.size());
+        assertEquals("b", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("negative", map.get(-5));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValuesAreRejected() {
+        new LongObjectHashMap<String>().put(1, null);
+    }
+
+    @Test
+    public void removeKeepsOtherKeysReachable() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long key = 0; key < 1000; key++) {
+            map.put(key, key);
+        }
+        for (long key = 0; key < 1000; key += 2) {
+            assertEquals(Long.valueOf(key), map.remove(key));
+        }
+
+        assertEquals(500, map.size());
+        for (long key = 0; key < 1000; key++) {
+            if (key % 2 == 0)
+                assertNull(map.get(key));
+            else
+                assertEquals(Long.valueOf(key), map.get(key));
+        }
+        assertNull(map.remove(0));
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomChanges() {
+        Random random = new Random(42);
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 20000; i++) {
+            // A small key range so the same keys are added and removed again
+            long key = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = -250; key < 250; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void keysAndValuesContainEveryEntry() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{1, 2, 3}, keys);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(map.values()));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1, "a");
+
+        LongObjectHashMap<String> copy = map.copy();
+        copy.put(2, "b");
+        copy.remove(1);
+        map.put(3, "c");
+
+        assertEquals("a", map.get(1));
+        assertNull(map.get(2));
+        assertNull(copy.get(1));
+        assertNull(copy.get(3));
+        assertEquals("b", copy.get(2));
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertEquals(0, map.keys().length);
+
+        map.put(1, "c");
+        assertEquals("c", map.get(1));
+    }
+}
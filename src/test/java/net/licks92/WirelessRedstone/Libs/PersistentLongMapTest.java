@@ -0,0 +1,157 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentLongMapTest {
+
+    @Test
+    public void putReturnsNewMapAndLeavesOldOneAlone() {
+        PersistentLongMap<String> empty = PersistentLongMap.empty();
+        PersistentLongMap<String> one = empty.put(1, "a");
+        PersistentLongMap<String> two = one.put(2, "b");
+        PersistentLongMap<String> replaced = two.put(1, "c");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(1, one.size());
+        assertNull(one.get(2));
+        assertEquals("a", two.get(1));
+        assertEquals("b", two.get(2));
+        assertEquals("c", replaced.get(1));
+        assertEquals(2, replaced.size());
+    }
+
+    @Test
+    public void removeReturnsNewMapAndLeavesOldOneAlone() {
+        PersistentLongMap<String> map = PersistentLongMap.<String>empty().put(1, "a").put(2, "b");
+        PersistentLongMap<String> removed = map.remove(1);
+
+        assertEquals("a", map.get(1));
+        assertNull(removed.get(1));
+        assertEquals("b", removed.get(2));
+        assertEquals(1, removed.size());
+
+        assertSame(removed, removed.remove(1));
+        assertTrue(removed.remove(2).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValuesAreRejected() {
+        PersistentLongMap.<String>empty().put(1, null);
+    }
+
+    @Test
+    public void editorChangesAreVisibleBeforeDone() {
+        PersistentLongMap<String> map = PersistentLongMap.<String>empty().put(1, "a");
+        PersistentLongMap.Editor<String> editor = map.edit();
+
+        assertNull(editor.put(2, "b"));
+        assertEquals("a", editor.put(1, "c"));
+        assertEquals("b", editor.remove(2));
+        assertNull(editor.remove(3));
+        assertEquals("c", editor.get(1));
+        assertEquals(1, editor.size());
+
+        PersistentLongMap<String> result = editor.done();
+        assertEquals("c", result.get(1));
+        assertEquals("a", map.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void editorCantBeUsedAfterDone() {
+        PersistentLongMap.Editor<String> editor = PersistentLongMap.<String>empty().edit();
+        editor.done();
+        editor.put(1, "a");
+    }
+
+    @Test
+    public void extremeKeysAreKeptApart() {
+        long[] keys = {0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32, -(1L << 32)};
+        PersistentLongMap<Long> map = PersistentLongMap.empty();
+        for (long key : keys) {
+            map = map.put(key, key);
+        }
+
+        assertEquals(keys.length, map.size());
+        for (long key : keys) {
+            assertEquals(Long.valueOf(key), map.get(key));
+        }
+
+        long[] stored = map.keys();
+        long[] sorted = keys.clone();
+        Arrays.sort(stored);
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, stored);
+    }
+
+    @Test
+    public void everyVersionMatchesHashMapUnderRandomChanges() {
+        Random random = new Random(11);
+        PersistentLongMap<Integer> map = PersistentLongMap.empty();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        // Keep some older versions around, later changes may not show up in them
+        PersistentLongMap<?>[] versions = new PersistentLongMap<?>[20];
+        Map<?, ?>[] expectedVersions = new Map<?, ?>[20];
+
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else if (random.nextInt(4) == 0) {
+                // Several changes at once with an editor
+                PersistentLongMap.Editor<Integer> editor = map.edit();
+                for (int j = 0; j < 5; j++) {
+                    long editKey = key + j;
+                    assertEquals(expected.put(editKey, i), editor.put(editKey, i));
+                }
+                map = editor.done();
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+
+            if (i % 1000 == 0) {
+                versions[i / 1000] = map;
+                expectedVersions[i / 1000] = new HashMap<>(expected);
+            }
+        }
+
+        assertMatches(expected, map);
+        for (int i = 0; i < versions.length; i++) {
+            assertMatches(expectedVersions[i], versions[i]);
+        }
+    }
+
+    @Test
+    public void valuesContainEveryEntry() {
+        PersistentLongMap<String> map = PersistentLongMap.<String>empty().put(1, "a").put(2, "b").put(3, "c");
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(map.values()));
+    }
+
+    private static void assertMatches(Map<?, ?> expected, PersistentLongMap<?> map) {
+        assertEquals(expected.size(), map.size());
+        for (long key = -1000; key < 1010; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        for (long key : map.keys()) {
+            assertTrue(expected.containsKey(key));
+        }
+        assertFalse(map.containsKey(5000));
+    }
+}
@@ -0,0 +1,54 @@
+package net.licks92.WirelessRedstone.Libs;
+
+import net.licks92.WirelessRedstone.TestServer;
+import org.bukkit.World;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class WorldHandleTest {
+
+    private TestServer server;
+
+    @Before
+    public void setUp() {
+        server = TestServer.setUp();
+        WorldHandle.invalidateAll();
+    }
+
+    @Test
+    public void worldIsCachedUntilInvalidated() {
+        World world = server.loadWorld("world");
+        WorldHandle handle = new WorldHandle("world");
+        assertSame(world, handle.get());
+
+        World reloaded = server.loadWorld("world");
+        assertSame(world, handle.get());
+
+        WorldHandle.invalidateAll();
+        assertSame(reloaded, handle.get());
+    }
+
+    @Test
+    public void worldIsNotCachedWhileItIsUnloading() {
+        server.loadWorld("world");
+        World other = server.loadWorld("other");
+        WorldHandle handle = new WorldHandle("world");
+        WorldHandle otherHandle = new WorldHandle("other");
+        handle.get();
+
+        // Bukkit still knows the world while the unload event is called
+        WorldHandle.invalidateAll("world");
+        assertNull(handle.get());
+        assertSame(other, otherHandle.get());
+
+        server.unloadWorld("world");
+        assertNull(handle.get());
+
+        World loaded = server.loadWorld("world");
+        WorldHandle.invalidateAll();
+        assertSame(loaded, handle.get());
+    }
+}
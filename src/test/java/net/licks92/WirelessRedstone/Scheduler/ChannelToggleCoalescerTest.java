@@ -0,0 +1,235 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessTransmitter;
+import net.licks92.WirelessRedstone.TestServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelToggleCoalescerTest {
+
+    private TestServer server;
+    private List<String> applied;
+
+    @Before
+    public void setUp() {
+        server = TestServer.setUp();
+        applied = new ArrayList<>();
+    }
+
+    @Test
+    public void onlyTheLastStateOfATickIsApplied() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(0);
+        TestChannel channel = new TestChannel("channel");
+
+        coalescer.request(channel, true);
+        coalescer.request(channel, false);
+        coalescer.request(channel, true);
+        assertEquals(1, coalescer.size());
+        assertEquals(Collections.<String>emptyList(), applied);
+
+        server.tick();
+        assertEquals(Collections.singletonList("channel on"), applied);
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    public void flushAppliesRightAwayAndCancelsTheTask() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(0);
+        coalescer.request(new TestChannel("channel"), false);
+        assertEquals(1, server.getTaskCount());
+
+        coalescer.flush();
+        assertEquals(Collections.singletonList("channel off"), applied);
+        assertEquals(0, server.getTaskCount());
+
+        server.tick();
+        assertEquals(1, applied.size());
+    }
+
+    @Test
+    public void channelsAreAppliedInRequestOrderWithTheLatestObject() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(0);
+        TestChannel reloaded = new TestChannel("First");
+
+        coalescer.request(new TestChannel("first"), true);
+        coalescer.request(new TestChannel("second"), true);
+        coalescer.request(reloaded, false);
+        assertEquals(2, coalescer.size());
+
+        coalescer.flush();
+        assertEquals(Arrays.asList("First off", "second on"), applied);
+        assertEquals(1, reloaded.applyCount);
+    }
+
+    @Test
+    public void togglesRequestedWhileFlushingWaitForTheNextFlush() {
+        final ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(0);
+        final TestChannel second = new TestChannel("second");
+        TestChannel first = new TestChannel("first") {
+            @Override
+            public boolean applyToggle(boolean on) {
+                coalescer.request(second, on);
+                return super.applyToggle(on);
+            }
+        };
+
+        coalescer.request(first, true);
+        coalescer.flush();
+        assertEquals(Collections.singletonList("first on"), applied);
+        assertEquals(1, coalescer.size());
+
+        server.tick();
+        assertEquals(Arrays.asList("first on", "second on"), applied);
+    }
+
+    @Test
+    public void channelToggledTooOftenIsSuspended() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(2);
+        TestChannel channel = new TestChannel("loop");
+        TestChannel other = new TestChannel("other");
+
+        for (int i = 0; i < 5; i++) {
+            coalescer.request(channel, i % 2 == 0);
+            if (i < 2)
+                coalescer.request(other, i % 2 == 0);
+            coalescer.flush();
+        }
+
+        // The third toggle goes over the limit, the toggles after it are ignored
+        assertEquals(3, channel.applyCount);
+        assertEquals(2, other.applyCount);
+        assertTrue(hasMessage("Channel loop toggled more than 2 times in one second"));
+        assertFalse(hasMessage("Channel other"));
+    }
+
+    @Test
+    public void countsStartOverAfterTheWindow() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(2);
+        TestChannel channel = new TestChannel("channel");
+
+        for (int i = 0; i < 2; i++) {
+            coalescer.request(channel, i % 2 == 0);
+            coalescer.flush();
+        }
+        server.tick(20);
+        for (int i = 0; i < 2; i++) {
+            coalescer.request(channel, i % 2 == 0);
+            coalescer.flush();
+        }
+
+        assertEquals(4, channel.applyCount);
+        assertFalse(hasMessage("toggled more than"));
+    }
+
+    @Test
+    public void selfPoweringChannelIsSuspendedAfterAFewTicks() {
+        final ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(15);
+        TestChannel channel = new TestChannel("loop") {
+            @Override
+            public boolean applyToggle(boolean on) {
+                // The receivers power the transmitters of the channel again
+                coalescer.request(this, !on);
+                return super.applyToggle(on);
+            }
+        };
+        WirelessTransmitter transmitter = new WirelessTransmitter();
+        transmitter.setWorld("world");
+        transmitter.setX(1);
+        transmitter.setY(2);
+        transmitter.setZ(3);
+        channel.addTransmitter(transmitter);
+
+        coalescer.request(channel, true);
+        server.tick(40);
+
+        // One toggle per tick, the 16th toggle within 20 ticks goes over the limit
+        assertEquals(16, channel.applyCount);
+        assertTrue(hasMessage("Channel loop toggled more than 15 times in one second"));
+        assertTrue(hasMessage("Transmitters: world 1,2,3."));
+
+        // The channel works again after the suspension
+        server.tick(100);
+        coalescer.request(channel, true);
+        server.tick();
+        assertEquals(17, channel.applyCount);
+    }
+
+    @Test
+    public void fastClockIsNotSuspended() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(15);
+        TestChannel channel = new TestChannel("clock");
+
+        // The fastest redstone clock changes every redstone tick, two game ticks
+        for (int i = 0; i < 100; i++) {
+            coalescer.request(channel, i % 2 == 0);
+            server.tick(2);
+        }
+
+        assertEquals(100, channel.applyCount);
+        assertFalse(hasMessage("toggled more than"));
+    }
+
+    @Test
+    public void togglesThatChangeNothingAreNotCounted() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(1);
+        TestChannel channel = new TestChannel("channel");
+        channel.changes = false;
+
+        for (int i = 0; i < 5; i++) {
+            coalescer.request(channel, true);
+            coalescer.flush();
+        }
+
+        assertEquals(5, channel.applyCount);
+        assertFalse(hasMessage("toggled more than"));
+    }
+
+    @Test
+    public void zeroLimitDisablesTheCheck() {
+        ChannelToggleCoalescer coalescer = new ChannelToggleCoalescer(0);
+        TestChannel channel = new TestChannel("channel");
+
+        for (int i = 0; i < 100; i++) {
+            coalescer.request(channel, i % 2 == 0);
+            coalescer.flush();
+        }
+
+        assertEquals(100, channel.applyCount);
+        assertEquals(0, server.getTaskCount());
+    }
+
+    private boolean hasMessage(String text) {
+        for (String message : server.getMessages()) {
+            if (message.contains(text))
+                return true;
+        }
+        return false;
+    }
+
+    private class TestChannel extends WirelessChannel {
+
+        private boolean changes = true;
+        private int applyCount = 0;
+
+        private TestChannel(String name) {
+            super(name);
+        }
+
+        @Override
+        public boolean applyToggle(boolean on) {
+            applyCount++;
+            applied.add(getName() + (on ? " on" : " off"));
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverClock;
+import net.licks92.WirelessRedstone.TestServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClockSchedulerTest {
+
+    private TestServer server;
+    private ClockScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        server = TestServer.setUp();
+        scheduler = new ClockScheduler();
+    }
+
+    @Test
+    public void clockTurnsOnNextTickAndTogglesEveryPeriod() {
+        TestClock clock = new TestClock(100, 0);
+        scheduler.start(clock, "channel");
+
+        server.tick(7);
+
+        // 100 ms is 2 ticks
+        assertEquals(Arrays.asList(1L, 3L, 5L, 7L), clock.tickTimes);
+        assertEquals(Arrays.asList(true, false, true, false), clock.states);
+    }
+
+    @Test
+    public void shortDelaysToggleEveryTick() {
+        TestClock clock = new TestClock(10, 0);
+        scheduler.start(clock, "channel");
+
+        server.tick(3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), clock.tickTimes);
+    }
+
+    @Test
+    public void periodsLongerThanTheWheelWaitForTheirTick() {
+        // 512 ticks, the timing wheel has 256 slots
+        TestClock clock = new TestClock(512 * 50, 0);
+        scheduler.start(clock, "channel");
+
+        server.tick(1000);
+        assertEquals(Arrays.asList(1L, 513L), clock.tickTimes);
+    }
+
+    @Test
+    public void startingTwiceDoesNothing() {
+        TestClock clock = new TestClock(100, 0);
+        scheduler.start(clock, "channel");
+        scheduler.start(clock, "channel");
+
+        assertEquals(1, scheduler.size());
+        server.tick(1);
+        assertEquals(1, clock.tickTimes.size());
+    }
+
+    @Test
+    public void clocksStartedLaterKeepTheirOwnPhase() {
+        TestClock first = new TestClock(100, 0);
+        TestClock second = new TestClock(100, 1);
+        scheduler.start(first, "channel");
+        server.tick(1);
+        scheduler.start(second, "channel");
+
+        server.tick(4);
+        assertEquals(Arrays.asList(1L, 3L, 5L), first.tickTimes);
+        assertEquals(Arrays.asList(2L, 4L), second.tickTimes);
+    }
+
+    @Test
+    public void stoppedClockDoesntTickAndTheTaskStops() {
+        TestClock clock = new TestClock(100, 0);
+        scheduler.start(clock, "channel");
+        server.tick(1);
+
+        assertTrue(scheduler.stop(clock));
+        assertFalse(scheduler.stop(clock));
+        assertEquals(0, scheduler.size());
+        assertEquals(0, server.getTaskCount());
+
+        server.tick(10);
+        assertEquals(1, clock.tickTimes.size());
+    }
+
+    @Test
+    public void stopChannelOnlyStopsThatChannel() {
+        TestClock first = new TestClock(100, 0);
+        TestClock second = new TestClock(100, 1);
+        TestClock other = new TestClock(100, 2);
+        scheduler.start(first, "Channel");
+        scheduler.start(second, "channel");
+        scheduler.start(other, "other");
+
+        scheduler.stopChannel("CHANNEL");
+        assertEquals(1, scheduler.size());
+
+        server.tick(3);
+        assertTrue(first.tickTimes.isEmpty());
+        assertTrue(second.tickTimes.isEmpty());
+        assertEquals(Arrays.asList(1L, 3L), other.tickTimes);
+    }
+
+    @Test
+    public void clockStoppedByAnotherClockInTheSameTickDoesntToggle() {
+        final TestClock second = new TestClock(100, 1);
+        TestClock first = new TestClock(100, 0) {
+            @Override
+            public void clockTick(String channelName, boolean on) {
+                super.clockTick(channelName, on);
+                scheduler.stop(second);
+            }
+        };
+        scheduler.start(first, "channel");
+        scheduler.start(second, "channel");
+
+        server.tick(1);
+        assertEquals(1, first.tickTimes.size());
+        assertTrue(second.tickTimes.isEmpty());
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void stopAllStopsEverything() {
+        TestClock first = new TestClock(100, 0);
+        TestClock second = new TestClock(250, 1);
+        scheduler.start(first, "channel");
+        scheduler.start(second, "other");
+
+        scheduler.stopAll();
+        assertEquals(0, scheduler.size());
+        assertEquals(0, server.getTaskCount());
+
+        server.tick(10);
+        assertTrue(first.tickTimes.isEmpty());
+        assertTrue(second.tickTimes.isEmpty());
+
+        // The scheduler can be used again
+        scheduler.start(first, "channel");
+        server.tick(1);
+        assertEquals(1, first.tickTimes.size());
+    }
+
+    private class TestClock extends WirelessReceiverClock {
+
+        private final List<Long> tickTimes = new ArrayList<>();
+        private final List<Boolean> states = new ArrayList<>();
+
+        private TestClock(int delay, int x) {
+            super(delay);
+            setWorld("world");
+            setX(x);
+            setY(64);
+            setZ(0);
+        }
+
+        @Override
+        public void clockTick(String channelName, boolean on) {
+            tickTimes.add(server.getCurrentTick());
+            states.add(on);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.licks92.WirelessRedstone.Scheduler;
+
+import net.licks92.WirelessRedstone.TestServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DelayQueueTest {
+
+    private TestServer server;
+    private DelayQueue queue;
+    private List<String> log;
+
+    @Before
+    public void setUp() {
+        server = TestServer.setUp();
+        queue = new DelayQueue();
+        log = new ArrayList<>();
+    }
+
+    @Test
+    public void actionRunsAfterItsDelay() {
+        queue.schedule("channel", "a", 3, record("a"));
+
+        server.tick(2);
+        assertEquals(Collections.<String>emptyList(), log);
+        assertEquals(1, queue.size());
+
+        server.tick();
+        assertEquals(Collections.singletonList("a"), log);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void delayIsAtLeastOneTick() {
+        queue.schedule("channel", "a", 0, record("a"));
+        queue.schedule("channel", "b", -5, record("b"));
+
+        server.tick();
+        assertEquals(Arrays.asList("a", "b"), log);
+    }
+
+    @Test
+    public void laterActionForTheSameTargetInTheSameTickReplacesTheFirst() {
+        queue.schedule("channel", "target", 2, record("on"));
+        queue.schedule("channel", "target", 2, record("off"));
+        assertEquals(1, queue.size());
+
+        server.tick(2);
+        assertEquals(Collections.singletonList("off"), log);
+    }
+
+    @Test
+    public void actionsForTheSameTargetInOtherTicksAllRun() {
+        queue.schedule("channel", "target", 1, record("on"));
+        queue.schedule("channel", "target", 2, record("off"));
+
+        server.tick(2);
+        assertEquals(Arrays.asList("on", "off"), log);
+    }
+
+    @Test
+    public void exclusiveActionDropsThePendingActionOfItsTarget() {
+        queue.scheduleExclusive("channel", "target", 5, record("first"));
+        queue.scheduleExclusive("channel", "target", 2, record("second"));
+        assertEquals(1, queue.size());
+
+        server.tick(10);
+        assertEquals(Collections.singletonList("second"), log);
+
+        // The first action already ran, so a new one doesn't drop anything else
+        queue.scheduleExclusive("channel", "other", 1, record("other"));
+        queue.scheduleExclusive("channel", "target", 1, record("third"));
+        server.tick();
+        assertEquals(Arrays.asList("second", "other", "third"), log);
+    }
+
+    @Test
+    public void actionsAreBatchedPerChannel() {
+        queue.schedule("first", "a", 1, record("first a"));
+        queue.schedule("second", "b", 1, record("second b"));
+        queue.schedule("FIRST", "c", 1, record("first c"));
+
+        server.tick();
+        assertEquals(Arrays.asList("first a", "first c", "second b"), log);
+    }
+
+    @Test
+    public void actionsScheduledWhileRunningRunInALaterTick() {
+        queue.schedule("channel", "a", 1, new Runnable() {
+            @Override
+            public void run() {
+                log.add("a");
+                queue.schedule("channel", "b", 1, record("b"));
+            }
+        });
+
+        server.tick();
+        assertEquals(Collections.singletonList("a"), log);
+        server.tick();
+        assertEquals(Arrays.asList("a", "b"), log);
+    }
+
+    @Test
+    public void taskStopsWhenTheQueueIsEmpty() {
+        queue.schedule("channel", "a", 2, record("a"));
+        assertEquals(1, server.getTaskCount());
+
+        server.tick(2);
+        assertEquals(0, server.getTaskCount());
+
+        queue.schedule("channel", "b", 1, record("b"));
+        server.tick();
+        assertEquals(Arrays.asList("a", "b"), log);
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        queue.schedule("channel", "a", 1, record("a"));
+        queue.scheduleExclusive("channel", "b", 2, record("b"));
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertEquals(0, server.getTaskCount());
+        server.tick(5);
+        assertEquals(Collections.<String>emptyList(), log);
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                log.add(name);
+            }
+        };
+    }
+}
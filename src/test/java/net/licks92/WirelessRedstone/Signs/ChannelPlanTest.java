@@ -0,0 +1,112 @@
+package net.licks92.WirelessRedstone.Signs;
+
+import net.licks92.WirelessRedstone.TestServer;
+import net.licks92.WirelessRedstone.WirelessRedstone;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelPlanTest {
+
+    @Before
+    public void setUp() {
+        TestServer.setUp();
+    }
+
+    @Test
+    public void targetsAreSortedByWorldChunkAndHeight() {
+        WirelessReceiver otherWorld = receiver(new WirelessReceiver(), "b", 0, 10, 0);
+        WirelessReceiver eastChunk = receiver(new WirelessReceiver(), "a", 20, 5, 0);
+        WirelessReceiver westChunk = receiver(new WirelessReceiver(), "a", -1, 70, 0);
+        WirelessReceiver high = receiver(new WirelessReceiver(), "a", 3, 64, 3);
+        WirelessReceiver low = receiver(new WirelessReceiver(), "a", 5, 12, 5);
+        WirelessReceiver southChunk = receiver(new WirelessReceiver(), "a", 0, 1, 16);
+
+        ChannelPlan plan = new ChannelPlan(Arrays.asList(otherWorld, eastChunk, westChunk, high, low, southChunk));
+
+        assertEquals(Arrays.asList(westChunk, low, high, southChunk, eastChunk, otherWorld),
+                receivers(plan.getOnTargets()));
+        assertEquals(5, plan.getChunkCount());
+    }
+
+    @Test
+    public void switchesAreLeftOutWhenTheChannelTurnsOff() {
+        WirelessReceiver first = receiver(new WirelessReceiver(), "world", 0, 10, 0);
+        WirelessReceiver toggle = receiver(new WirelessReceiverSwitch(), "world", 0, 11, 0);
+        WirelessReceiver last = receiver(new WirelessReceiver(), "world", 0, 12, 0);
+
+        ChannelPlan plan = new ChannelPlan(Arrays.asList(last, toggle, first));
+
+        assertEquals(Arrays.asList(first, toggle, last), receivers(plan.getOnTargets()));
+        assertEquals(Arrays.asList(first, last), receivers(plan.getOffTargets()));
+        assertEquals(1, plan.getChunkCount());
+    }
+
+    @Test
+    public void targetsHaveThePackedKeysOfTheirReceiver() {
+        WirelessReceiver receiver = receiver(new WirelessReceiver(), "world", -17, 40, 33);
+        ChannelPlan.Target target = new ChannelPlan(Collections.singletonList(receiver)).getOnTargets().get(0);
+
+        assertSame(receiver, target.getReceiver());
+        assertEquals("world", target.getWorld());
+        assertEquals(WirelessRedstone.getUtils().getBlockKey(-17, 40, 33), target.getBlockKey());
+        assertEquals(WirelessRedstone.getUtils().getChunkKey(-2, 2), target.getChunkKey());
+    }
+
+    @Test
+    public void sameChunkComparesTheWorldToo() {
+        WirelessReceiver first = receiver(new WirelessReceiver(), "a", 1, 10, 1);
+        WirelessReceiver second = receiver(new WirelessReceiver(), "a", 15, 20, 15);
+        WirelessReceiver otherWorld = receiver(new WirelessReceiver(), "b", 1, 10, 1);
+        WirelessReceiver nextChunk = receiver(new WirelessReceiver(), "a", 16, 10, 1);
+
+        List<ChannelPlan.Target> targets = new ChannelPlan(Arrays.asList(first, second, otherWorld, nextChunk))
+                .getOnTargets();
+
+        // Sorted: first, second, nextChunk, otherWorld
+        assertTrue(targets.get(0).sameChunk(targets.get(1)));
+        assertFalse(targets.get(1).sameChunk(targets.get(2)));
+        assertFalse(targets.get(0).sameChunk(targets.get(3)));
+        assertEquals(3, new ChannelPlan(Arrays.asList(first, second, otherWorld, nextChunk)).getChunkCount());
+    }
+
+    @Test
+    public void emptyPlan() {
+        ChannelPlan plan = new ChannelPlan(Collections.<WirelessReceiver>emptyList());
+
+        assertTrue(plan.getOnTargets().isEmpty());
+        assertTrue(plan.getOffTargets().isEmpty());
+        assertEquals(0, plan.getChunkCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void planCantBeChanged() {
+        ChannelPlan plan = new ChannelPlan(Collections.singletonList(receiver(new WirelessReceiver(), "world", 0, 0, 0)));
+        plan.getOnTargets().clear();
+    }
+
+    private static WirelessReceiver receiver(WirelessReceiver receiver, String world, int x, int y, int z) {
+        receiver.setWorld(world);
+        receiver.setX(x);
+        receiver.setY(y);
+        receiver.setZ(z);
+        return receiver;
+    }
+
+    private static List<WirelessReceiver> receivers(List<ChannelPlan.Target> targets) {
+        List<WirelessReceiver> receivers = new ArrayList<>(targets.size());
+        for (ChannelPlan.Target target : targets) {
+            receivers.add(target.getReceiver());
+        }
+        return receivers;
+    }
+}
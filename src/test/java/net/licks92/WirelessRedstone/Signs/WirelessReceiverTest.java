@@ -0,0 +1,78 @@
+package net.licks92.WirelessRedstone.Signs;
+
+import net.licks92.WirelessRedstone.TestServer;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class WirelessReceiverTest {
+
+    private List<String> writes;
+
+    @Before
+    public void setUp() {
+        TestServer.setUp();
+        writes = new ArrayList<>();
+    }
+
+    @Test
+    public void floorReceiverExpectsAStandingTorch() {
+        WirelessReceiver receiver = new WirelessReceiver();
+        receiver.setIsWallSign(false);
+        receiver.setDirection(BlockFace.NORTH);
+
+        // The direction of a sign post doesn't change the torch
+        assertEquals(5, receiver.computeTorchData());
+    }
+
+    @Test
+    public void litFloorReceiverIsLeftAlone() {
+        WirelessReceiver receiver = new WirelessReceiver();
+        receiver.setIsWallSign(false);
+
+        receiver.placeTorch(block(76, (byte) 5), receiver.computeTorchData());
+        assertEquals(Collections.<String>emptyList(), writes);
+    }
+
+    @Test
+    public void litWallReceiverIsLeftAlone() {
+        WirelessReceiver receiver = new WirelessReceiver();
+        receiver.setIsWallSign(true);
+        receiver.setDirection(BlockFace.NORTH);
+
+        assertEquals(4, receiver.computeTorchData());
+        receiver.placeTorch(block(76, (byte) 4), receiver.computeTorchData());
+        assertEquals(Collections.<String>emptyList(), writes);
+    }
+
+    // A block that reports the type and data and records the writes
+    private Block block(final int typeId, final byte data) {
+        return (Block) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Block.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getTypeId":
+                                return typeId;
+                            case "getData":
+                                return data;
+                            case "setTypeIdAndData":
+                                writes.add(args[0] + ":" + args[1]);
+                                return true;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+}
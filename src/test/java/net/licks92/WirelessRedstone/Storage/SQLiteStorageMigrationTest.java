@@ -0,0 +1,289 @@
+package net.licks92.WirelessRedstone.Storage;
+
+import net.licks92.WirelessRedstone.Libs.SQLite;
+import net.licks92.WirelessRedstone.Signs.WirelessChannel;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiver;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverClock;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverDelayer;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverInverter;
+import net.licks92.WirelessRedstone.Signs.WirelessReceiverSwitch;
+import net.licks92.WirelessRedstone.TestServer;
+import org.bukkit.block.BlockFace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SQLiteStorageMigrationTest {
+
+    private TestServer server;
+    private File folder;
+    private File channelFolder;
+    private Connection connection;
+    private SQLite sqLite;
+    private SQLiteStorage storage;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        server = TestServer.setUp();
+        folder = Files.createTempDirectory("WirelessRedstone").toFile();
+        channelFolder = new File(folder, "channels");
+        assertTrue(channelFolder.mkdir());
+
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        connection = DriverManager.getConnection("jdbc:sqlite:" + new File(channelFolder, "WirelessRedstoneDatabase.db"),
+                config.toProperties());
+        sqLite = new SQLite(connection, false);
+        storage = new SQLiteStorage(channelFolder, sqLite);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        sqLite.closeConnection();
+        delete(folder);
+    }
+
+    @Test
+    public void legacyTablesAreMovedIntoTheNewTables() throws SQLException {
+        createLegacyTable("alpha");
+        insertChannelRow("alpha", "alpha", 0, "owner1");
+        insertOwnerRow("alpha", "owner2");
+        insertPointRow("alpha", "receiver", 1, 64, -3, "NORTH", true);
+        insertPointRow("alpha", "receiver_inverter", 2, 64, -3, "EAST", false);
+        insertPointRow("alpha", "transmitter", 3, 64, -3, "SOUTH", false);
+        insertPointRow("alpha", "screen", 4, 64, -3, "WEST", true);
+
+        createLegacyTable("beta");
+        insertChannelRow("beta", "beta", 1, "owner3");
+        insertPointRow("beta", "receiver_delayer_500", 10, 70, 10, "NORTH", false);
+        insertPointRow("beta", "receiver_switch_true", 11, 70, 10, "NORTH", false);
+        insertPointRow("beta", "receiver_clock_1000", 12, 70, 10, "NORTH", false);
+
+        assertTrue(storage.initiate(false));
+
+        assertEquals(new HashSet<>(Arrays.asList(SQLiteMap.sqlTableChannels, SQLiteMap.sqlTableSigns)), tables());
+        assertEquals(2, schemaVersion());
+
+        List<WirelessChannel> channels = new ArrayList<>(storage.getAllChannels(true));
+        assertEquals(2, channels.size());
+
+        WirelessChannel alpha = find(channels, "alpha");
+        assertFalse(alpha.isLocked());
+        assertEquals(Arrays.asList("owner1", "owner2"), alpha.getOwners());
+        assertEquals(2, alpha.getReceivers().size());
+        assertEquals(1, alpha.getTransmitters().size());
+        assertEquals(1, alpha.getScreens().size());
+
+        WirelessReceiver receiver = alpha.getReceivers().get(0);
+        assertEquals(WirelessReceiver.class, receiver.getClass());
+        assertEquals("world", receiver.getWorld());
+        assertEquals(1, receiver.getX());
+        assertEquals(64, receiver.getY());
+        assertEquals(-3, receiver.getZ());
+        assertEquals(BlockFace.NORTH, receiver.getDirection());
+        assertTrue(receiver.getIsWallSign());
+        assertEquals("signOwner", receiver.getOwner());
+        assertTrue(alpha.getReceivers().get(1) instanceof WirelessReceiverInverter);
+
+        WirelessChannel beta = find(channels, "beta");
+        assertTrue(beta.isLocked());
+        assertEquals(Collections.singletonList("owner3"), beta.getOwners());
+        assertEquals(3, beta.getReceivers().size());
+        assertEquals(500, ((WirelessReceiverDelayer) beta.getReceivers().get(0)).getDelay());
+        assertTrue(((WirelessReceiverSwitch) beta.getReceivers().get(1)).getState());
+        assertEquals(1000, ((WirelessReceiverClock) beta.getReceivers().get(2)).getDelay());
+
+        assertNotNull("The old database should have been backed up", backup());
+    }
+
+    @Test
+    public void channelWithTheSameNameIsOnlyKeptOnce() throws SQLException {
+        createLegacyTable("first");
+        insertChannelRow("first", "Channel", 0, "owner1");
+        insertPointRow("first", "transmitter", 0, 64, 0, "NORTH", false);
+
+        createLegacyTable("second");
+        insertChannelRow("second", "CHANNEL", 0, "owner2");
+        insertPointRow("second", "transmitter", 5, 64, 5, "NORTH", false);
+
+        assertTrue(storage.initiate(false));
+
+        Collection<WirelessChannel> channels = storage.getAllChannels(true);
+        assertEquals(1, channels.size());
+        assertEquals(1, channels.iterator().next().getTransmitters().size());
+        assertTrue(hasMessage("exists more than once"));
+    }
+
+    @Test
+    public void tablesWithoutAChannelAreDropped() throws SQLException {
+        createLegacyTable("empty");
+        createLegacyTable("alpha");
+        insertChannelRow("alpha", "alpha", 0, "owner1");
+        insertPointRow("alpha", "receiver", 0, 64, 0, "NORTH", false);
+
+        assertTrue(storage.initiate(false));
+
+        assertEquals(new HashSet<>(Arrays.asList(SQLiteMap.sqlTableChannels, SQLiteMap.sqlTableSigns)), tables());
+        assertEquals(1, storage.getAllChannels(true).size());
+    }
+
+    @Test
+    public void tableThatCantBeReadIsKept() throws SQLException {
+        execute("CREATE TABLE 'broken' (foo int)");
+        execute("INSERT INTO 'broken' (foo) VALUES (1)");
+        createLegacyTable("alpha");
+        insertChannelRow("alpha", "alpha", 0, "owner1");
+        insertPointRow("alpha", "receiver", 0, 64, 0, "NORTH", false);
+
+        assertTrue(storage.initiate(false));
+
+        assertEquals(new HashSet<>(Arrays.asList("broken", SQLiteMap.sqlTableChannels, SQLiteMap.sqlTableSigns)), tables());
+        assertEquals(1, rowCount("broken"));
+        assertTrue(hasMessage("Could not read the channel in table broken"));
+
+        Collection<WirelessChannel> channels = storage.getAllChannels(true);
+        assertEquals(1, channels.size());
+        assertEquals("alpha", channels.iterator().next().getName());
+        assertNotNull(backup());
+    }
+
+    @Test
+    public void newDatabaseGetsTheTablesWithoutABackup() throws SQLException {
+        assertTrue(storage.initiate(false));
+
+        assertEquals(new HashSet<>(Arrays.asList(SQLiteMap.sqlTableChannels, SQLiteMap.sqlTableSigns)), tables());
+        assertEquals(2, schemaVersion());
+        assertTrue(storage.getAllChannels(true).isEmpty());
+        assertNull(backup());
+    }
+
+    @Test
+    public void convertedDatabaseIsLeftAlone() throws SQLException {
+        createLegacyTable("alpha");
+        insertChannelRow("alpha", "alpha", 0, "owner1");
+        insertPointRow("alpha", "receiver", 0, 64, 0, "NORTH", false);
+        assertTrue(storage.initiate(false));
+        delete(backup());
+
+        assertTrue(storage.initiate(false));
+
+        Collection<WirelessChannel> channels = storage.getAllChannels(true);
+        assertEquals(1, channels.size());
+        assertEquals(1, channels.iterator().next().getReceivers().size());
+        assertNull(backup());
+    }
+
+    private void createLegacyTable(String table) throws SQLException {
+        execute("CREATE TABLE '" + table + "' (id int, name char(64), locked int(1), owners char(255),"
+                + " direction char(255), isWallSign int(1), signType char(255), x int, y int, z int, world char(255),"
+                + " signOwner char(255))");
+    }
+
+    private void insertChannelRow(String table, String name, int locked, String owner) throws SQLException {
+        execute("INSERT INTO '" + table + "' (id, name, locked, owners) VALUES (0, '" + name + "', " + locked + ", '"
+                + owner + "')");
+    }
+
+    private void insertOwnerRow(String table, String owner) throws SQLException {
+        execute("INSERT INTO '" + table + "' (owners) VALUES ('" + owner + "')");
+    }
+
+    private void insertPointRow(String table, String type, int x, int y, int z, String direction, boolean wallSign)
+            throws SQLException {
+        execute("INSERT INTO '" + table + "' (signType, x, y, z, world, direction, isWallSign, signOwner) VALUES ('"
+                + type + "', " + x + ", " + y + ", " + z + ", 'world', '" + direction + "', " + (wallSign ? 1 : 0)
+                + ", 'signOwner')");
+    }
+
+    private void execute(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate(sql);
+        statement.close();
+    }
+
+    private HashSet<String> tables() throws SQLException {
+        HashSet<String> tables = new HashSet<>();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name NOT LIKE 'sqlite_%'");
+        while (rs.next()) {
+            tables.add(rs.getString("name"));
+        }
+        rs.close();
+        statement.close();
+        return tables;
+    }
+
+    private int rowCount(String table) throws SQLException {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM '" + table + "'");
+        int count = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        statement.close();
+        return count;
+    }
+
+    private int schemaVersion() throws SQLException {
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("PRAGMA user_version");
+        int version = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        statement.close();
+        return version;
+    }
+
+    private File backup() {
+        for (File file : folder.listFiles()) {
+            if (file.getName().startsWith("WRBackup") && file.getName().endsWith(".zip"))
+                return file;
+        }
+        return null;
+    }
+
+    private boolean hasMessage(String text) {
+        for (String message : server.getMessages()) {
+            if (message.contains(text))
+                return true;
+        }
+        return false;
+    }
+
+    private static WirelessChannel find(Collection<WirelessChannel> channels, String name) {
+        for (WirelessChannel channel : channels) {
+            if (channel.getName().equals(name))
+                return channel;
+        }
+        throw new AssertionError("Channel " + name + " is missing");
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,270 @@
+package net.licks92.WirelessRedstone;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Lets the tests run plugin code without a server. A fake server is given to Bukkit whose scheduler only runs its tasks
+ * when a test calls {@link #tick()}, and the services of {@link WirelessRedstone} that don't need a server are set.
+ * Bukkit only accepts one server, so there is one TestServer for all the tests; {@link #setUp()} resets it.
+ */
+public final class TestServer {
+
+    private static TestServer instance = null;
+
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, World> worlds = new HashMap<>();
+    private long currentTick = 0;
+    private int nextTaskId = 1;
+
+    private TestServer() {
+    }
+
+    /**
+     * Install the fake server if that hasn't been done yet, drop all the tasks and messages and set new services.
+     */
+    public static TestServer setUp() {
+        if (instance == null) {
+            instance = new TestServer();
+            Bukkit.setServer(instance.createServer());
+        }
+
+        instance.tasks.clear();
+        instance.messages.clear();
+        instance.worlds.clear();
+        instance.currentTick = 0;
+
+        ConsoleCommandSender console = proxy(ConsoleCommandSender.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("sendMessage") && args[0] instanceof String)
+                    instance.messages.add((String) args[0]);
+                return defaultValue(proxy, method, args);
+            }
+        });
+        setService("utils", new Utils());
+        setService("WRLogger", new WRLogger("[WirelessRedstone]", console, true, false));
+        return instance;
+    }
+
+    /**
+     * Set a static service field of {@link WirelessRedstone}.
+     */
+    public static void setService(String field, Object value) {
+        try {
+            Field service = WirelessRedstone.class.getDeclaredField(field);
+            service.setAccessible(true);
+            service.set(null, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't set the service " + field, e);
+        }
+    }
+
+    /**
+     * Run the tasks that are due in the next tick.
+     */
+    public void tick() {
+        currentTick++;
+
+        // Tasks scheduled while running are due in a later tick at the earliest
+        for (ScheduledTask task : new ArrayList<>(tasks)) {
+            if (task.cancelled || task.nextTick != currentTick)
+                continue;
+
+            if (task.period > 0)
+                task.nextTick += task.period;
+            else
+                task.cancelled = true;
+            task.runnable.run();
+        }
+
+        Iterator<ScheduledTask> iterator = tasks.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().cancelled)
+                iterator.remove();
+        }
+    }
+
+    public void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * @return the tick that is running or ran last, 0 before the first tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * @return the amount of tasks that haven't been cancelled or run yet
+     */
+    public int getTaskCount() {
+        int count = 0;
+        for (ScheduledTask task : tasks) {
+            if (!task.cancelled)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the messages sent to the console since the last setUp
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Load a world with the given name, the server returns it from getWorld until it is unloaded.
+     */
+    public World loadWorld(final String name) {
+        World world = proxy(World.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getName"))
+                    return name;
+                return defaultValue(proxy, method, args);
+            }
+        });
+        worlds.put(name, world);
+        return world;
+    }
+
+    public void unloadWorld(String name) {
+        worlds.remove(name);
+    }
+
+    private Server createServer() {
+        final BukkitScheduler scheduler = proxy(BukkitScheduler.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "runTask":
+                        return schedule((Runnable) args[1], 0, 0);
+                    case "runTaskLater":
+                        return schedule((Runnable) args[1], (Long) args[2], 0);
+                    case "runTaskTimer":
+                        return schedule((Runnable) args[1], (Long) args[2], (Long) args[3]);
+                    case "cancelTask":
+                        for (ScheduledTask task : tasks) {
+                            if (task.id == (Integer) args[0])
+                                task.cancelled = true;
+                        }
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException("The test scheduler doesn't support " + method.getName());
+                }
+            }
+        });
+
+        final Logger logger = Logger.getLogger("WirelessRedstoneTest");
+        return proxy(Server.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getScheduler":
+                        return scheduler;
+                    case "getLogger":
+                        return logger;
+                    case "getWorld":
+                        return args[0] instanceof String ? worlds.get(args[0]) : null;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private BukkitTask schedule(Runnable runnable, long delay, long period) {
+        final ScheduledTask task = new ScheduledTask(nextTaskId++, runnable, currentTick + Math.max(1, delay), period);
+        tasks.add(task);
+
+        return proxy(BukkitTask.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "cancel":
+                        task.cancelled = true;
+                        return null;
+                    case "getTaskId":
+                        return task.id;
+                    case "isSync":
+                        return true;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TestServer.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Test" + method.getDeclaringClass().getSimpleName();
+        }
+
+        Class<?> type = method.getReturnType();
+        if (type == String.class)
+            return "WirelessRedstoneTest";
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == double.class)
+            return 0.0;
+        if (type == float.class)
+            return 0.0f;
+        if (type == short.class)
+            return (short) 0;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == char.class)
+            return (char) 0;
+        return null;
+    }
+
+    private static class ScheduledTask {
+
+        private final int id;
+        private final Runnable runnable;
+        private final long period;
+        private long nextTick;
+        private boolean cancelled = false;
+
+        private ScheduledTask(int id, Runnable runnable, long nextTick, long period) {
+            this.id = id;
+            this.runnable = runnable;
+            this.nextTick = nextTick;
+            this.period = period;
+        }
+    }
+}